@@ -0,0 +1,79 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.CodecConfig;
+import com.example.demo.data.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding a page of distinct products as JSON, CBOR and Smile, plain and gzipped as the server compresses lists.
+ * Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL"};
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"50"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private List<Product> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (format) {
+            case "cbor":
+                objectMapper = CodecConfig.cborMapper(new Jackson2ObjectMapperBuilder());
+                break;
+            case "smile":
+                objectMapper = CodecConfig.smileMapper(new Jackson2ObjectMapperBuilder());
+                break;
+            default:
+                objectMapper = new Jackson2ObjectMapperBuilder().build();
+        }
+
+        page = new ArrayList<>(pageSize);
+        var random = new Random(42);
+        for (int i = 0; i < pageSize; i++) {
+            var sku = "FAL-" + (1000000 + random.nextInt(9000000));
+            var product = new Product(sku, "product " + Long.toString(random.nextLong(), 36), "brand " + random.nextInt(100),
+                    SIZES[random.nextInt(SIZES.length)], Math.round(random.nextDouble() * 1000000) / 100.0,
+                    "https://cdn.example.com/products/" + sku + "/principal.jpg",
+                    List.of("https://cdn.example.com/products/" + sku + "/1.jpg", "https://cdn.example.com/products/" + sku + "/2.jpg"));
+            product.setId(i + 1L);
+            page.add(product);
+        }
+        System.out.printf("%n%s page of %d: %d bytes, %d gzipped%n", format, pageSize, encode().length, encodeGzipped().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encodeGzipped() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, page);
+        }
+        return bytes.toByteArray();
+    }
+}
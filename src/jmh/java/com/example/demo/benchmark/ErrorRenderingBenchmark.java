@@ -0,0 +1,49 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.HandlerConfig;
+import com.example.demo.domain.exception.DomainException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock exchanges are expensive to build (they set up every codec), so a fresh one is prepared
+ * outside the measured section for each invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorRenderingBenchmark {
+    private HandlerConfig handlerConfig;
+    private MockServerWebExchange exchange;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handlerConfig = new HandlerConfig(Jackson2ObjectMapperBuilder.json().build(), new Jackson2ObjectMapperBuilder(), new SimpleMeterRegistry());
+    }
+
+    @Setup(Level.Invocation)
+    public void newExchange() {
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product/some_sku"));
+    }
+
+    @Benchmark
+    public MockServerWebExchange fixedError() {
+        handlerConfig.handle(exchange, DomainException.SKU_RANGE).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public MockServerWebExchange dynamicError() {
+        handlerConfig.handle(exchange, new DomainException(HttpStatus.BAD_REQUEST, "limit must be between 1 and 500")).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.data.entity.Product;
+import com.example.demo.domain.request.ProductRequest;
+
+import java.util.List;
+
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    static ProductRequest.ProductRequestBuilder productRequest() {
+        return ProductRequest.builder()
+                .sku("FAL-1000000")
+                .name("some_name")
+                .brand("some_brand")
+                .size("L")
+                .price(129.99);
+    }
+
+    static Product product() {
+        var product = new Product("FAL-1000000", "some_name", "some_brand", "L", 129.99,
+                "https://cdn.example.com/products/FAL-1000000/principal.jpg",
+                List.of("https://cdn.example.com/products/FAL-1000000/1.jpg", "https://cdn.example.com/products/FAL-1000000/2.jpg"));
+        product.setId(1L);
+        return product;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.data.entity.Product;
+import com.example.demo.domain.ProductMapper;
+import com.example.demo.domain.request.ProductRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMapperBenchmark {
+    private final ProductMapper productMapper = new ProductMapper();
+
+    private ProductRequest withoutImages;
+    private ProductRequest withImages;
+
+    @Setup
+    public void setUp() {
+        withoutImages = Fixtures.productRequest().build();
+        withImages = Fixtures.productRequest()
+                .principalImage("https://cdn.example.com/products/FAL-1000000/principal.jpg")
+                .otherImages(List.of(
+                        "https://cdn.example.com/products/FAL-1000000/1.jpg",
+                        "https://cdn.example.com/products/FAL-1000000/2.jpg",
+                        "https://cdn.example.com/products/FAL-1000000/3.jpg",
+                        "https://cdn.example.com/products/FAL-1000000/4.jpg"))
+                .build();
+    }
+
+    @Benchmark
+    public Product applyWithoutImages() {
+        return productMapper.apply(withoutImages);
+    }
+
+    @Benchmark
+    public Product applyWithOtherImages() {
+        return productMapper.apply(withImages);
+    }
+}
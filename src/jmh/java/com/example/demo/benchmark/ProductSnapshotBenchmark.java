@@ -0,0 +1,110 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.data.entity.Product;
+import com.example.demo.domain.Sku;
+import com.example.demo.domain.cache.ProductSnapshot;
+import com.example.demo.domain.request.ProductRequest;
+import com.example.demo.domain.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ProductService.findProductBySku} for random skus of a catalog of {@code products} in H2, served by the
+ * database with the product cache disabled, or by the off-heap snapshot. The snapshot trial prints its direct
+ * memory next to the heap the same products take as entities, decoded from the snapshot because the in-memory
+ * database shares the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductSnapshotBenchmark {
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL"};
+
+    @Param({"database", "snapshot"})
+    private String path;
+
+    @Param({"100000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private String[] skus;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--product.snapshot.enabled=" + path.equals("snapshot"), "--product.cache.enabled=false",
+                        "--logging.level.root=warn");
+        productService = context.getBean(ProductService.class);
+
+        random = new Random(42);
+        skus = new String[products];
+        productService.saveProducts(Flux.range(0, products).map(i -> {
+            var sku = "FAL-" + (1000000 + i);
+            skus[i] = sku;
+            return ProductRequest.builder()
+                    .sku(sku)
+                    .name("product " + Long.toString(random.nextLong(), 36))
+                    .brand("brand " + random.nextInt(100))
+                    .size(SIZES[random.nextInt(SIZES.length)])
+                    .price(1 + Math.round(random.nextDouble() * 1000000) / 100.0)
+                    .principalImage("https://cdn.example.com/products/" + sku + "/principal.jpg")
+                    .otherImages(List.of("https://cdn.example.com/products/" + sku + "/1.jpg", "https://cdn.example.com/products/" + sku + "/2.jpg"))
+                    .build();
+        })).blockLast();
+
+        if (path.equals("snapshot")) {
+            productService.rebuildSnapshot().block();
+            printFootprint();
+        }
+    }
+
+    private void printFootprint() {
+        var meters = context.getBean(MeterRegistry.class);
+        var data = meters.get("product.snapshot.bytes").tag("area", "data").gauge().value();
+        var index = meters.get("product.snapshot.bytes").tag("area", "index").gauge().value();
+        var live = meters.get("product.snapshot.live.bytes").gauge().value();
+
+        var snapshot = context.getBean(ProductSnapshot.class);
+        var before = usedHeap();
+        var entities = new ArrayList<Product>(skus.length);
+        for (String sku : skus)
+            entities.add(snapshot.find(sku, Sku.parseNumber(sku)));
+        var heap = usedHeap() - before;
+        System.out.printf("%n%d products: snapshot %.1f MB off heap (%.1f MB data, %.1f MB live, %.1f MB index), entities %.1f MB on heap%n",
+                entities.size(), (data + index) / 1e6, data / 1e6, live / 1e6, index / 1e6, heap / 1e6);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> findProductBySku() {
+        return productService.findProductBySku(skus[random.nextInt(skus.length)]).block();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.domain.Sku;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sku checks every {@code ProductService} entry point runs, next to the regex/split/parseInt
+ * sequence they replaced so the gap stays visible across releases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkuBenchmark {
+    private static final String LEGACY_REGEX_SKU = "[FAL]+[-]+\\d+$";
+
+    @Param({"FAL-1000000", "some_sku"})
+    public String sku;
+
+    @Benchmark
+    public boolean parse() {
+        var parsed = Sku.parse(sku);
+        return parsed != null && parsed.inRange();
+    }
+
+    @Benchmark
+    public long parseNumber() {
+        return Sku.parseNumber(sku);
+    }
+
+    @Benchmark
+    public boolean legacyRegexSplitParseInt() {
+        if (!sku.matches(LEGACY_REGEX_SKU))
+            return false;
+        var s = Integer.parseInt(sku.split("-")[1]);
+        return s >= 1000000 && s <= 99999999;
+    }
+}
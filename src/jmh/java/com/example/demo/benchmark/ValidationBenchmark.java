@@ -0,0 +1,71 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.domain.request.ProductRequest;
+import com.example.demo.domain.validation.CompiledProductRequestValidator;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private CompiledProductRequestValidator compiledValidator;
+    private ProductRequest valid;
+    private ProductRequest invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        compiledValidator = new CompiledProductRequestValidator();
+        valid = Fixtures.productRequest()
+                .principalImage("https://cdn.example.com/products/FAL-1000000/principal.jpg")
+                .otherImages(List.of(
+                        "https://cdn.example.com/products/FAL-1000000/1.jpg",
+                        "https://cdn.example.com/products/FAL-1000000/2.jpg"))
+                .build();
+        invalid = Fixtures.productRequest()
+                .sku("some_sku")
+                .name("")
+                .price(0.5)
+                .principalImage("not an url")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductRequest>> validRequest() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductRequest>> invalidRequest() {
+        return validator.validate(invalid);
+    }
+
+    @Benchmark
+    public String compiledValidRequest() {
+        return compiledValidator.validate(valid);
+    }
+
+    @Benchmark
+    public String compiledInvalidRequest() {
+        return compiledValidator.validate(invalid);
+    }
+}
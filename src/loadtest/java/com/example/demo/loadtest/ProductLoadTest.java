@@ -0,0 +1,251 @@
+package com.example.demo.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Open-model load test: requests are started at a fixed arrival rate whatever the response times are,
+ * and latency is measured from the intended start time so queueing is not hidden (no coordinated omission).
+ * <p>
+ * Run with {@code mvn -Pload-test verify -Dload.rate=1000 -Dload.duration=60s -Dload.mix=create:10,get:70,update:10,delete:10}.
+ * Percentile distributions are written to {@code target/load-test/*.hgrm}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "product.admission.rate=0")
+class ProductLoadTest {
+    private static final long SKU_BASE = 5000000L;
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    enum Operation {CREATE, GET, UPDATE, DELETE}
+
+    @LocalServerPort
+    int port;
+
+    @Value("${load.rate:500}")
+    int rate;
+
+    @Value("${load.duration:30s}")
+    Duration duration;
+
+    @Value("${load.warmup:10s}")
+    Duration warmup;
+
+    @Value("${load.mix:create:10,get:70,update:10,delete:10}")
+    String mix;
+
+    @Value("${load.skus:10000}")
+    int skus;
+
+    @Value("${load.connections:500}")
+    int connections;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong nextSku = new AtomicLong();
+    private long[] ids;
+    private HttpClient client;
+
+    @Test
+    void runLoad() throws IOException {
+        var provider = ConnectionProvider.builder("load-test").maxConnections(connections).pendingAcquireMaxCount(-1).build();
+        client = HttpClient.create(provider).baseUrl("http://localhost:" + port + "/product");
+        var weights = parseMix(mix);
+
+        populate();
+
+        drive(weights, warmup);
+        recorders.clear();
+        errors.clear();
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+
+        var started = System.nanoTime();
+        drive(weights, duration);
+        var elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        var total = report(elapsedSeconds);
+        provider.disposeLater().block();
+        assertTrue(total > 0, "no request completed");
+    }
+
+    private void populate() {
+        ids = new long[skus];
+        Flux.range(0, skus)
+                .map(i -> "{\"sku\":\"FAL-" + (SKU_BASE + i) + "\",\"name\":\"load_name\",\"brand\":\"load_brand\",\"size\":\"L\",\"price\":10.0}\n")
+                .buffer(1000)
+                .concatMap(batch -> client.headers(h -> h.set(HttpHeaderNames.CONTENT_TYPE, "application/x-ndjson"))
+                        .post()
+                        .uri("/bulk")
+                        .send(ByteBufFlux.fromString(Flux.fromIterable(batch)))
+                        .responseContent()
+                        .aggregate()
+                        .asString())
+                .doOnNext(body -> {
+                    for (String result : body.split("\n")) {
+                        var found = ID.matcher(result);
+                        if (found.find())
+                            ids[(int) (Long.parseLong(skuOf(result)) - SKU_BASE)] = Long.parseLong(found.group(1));
+                    }
+                })
+                .blockLast();
+        nextSku.set(SKU_BASE + skus);
+    }
+
+    private static String skuOf(String result) {
+        var start = result.indexOf("FAL-") + 4;
+        return result.substring(start, result.indexOf('"', start));
+    }
+
+    /**
+     * Starts {@code rate} requests per second for {@code length}, ticking every millisecond and catching up
+     * with the schedule on each tick, then waits for the in-flight ones.
+     */
+    private void drive(int[] weights, Duration length) {
+        var requests = rate * length.toMillis() / 1000;
+        var intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        var origin = System.nanoTime();
+        var issued = new AtomicLong();
+
+        Flux.interval(Duration.ofMillis(1))
+                .takeUntil(__ -> issued.get() >= requests)
+                .concatMapIterable(__ -> {
+                    var due = Math.min(requests, (System.nanoTime() - origin) / intervalNanos + 1);
+                    var batch = new ArrayList<Long>();
+                    for (long n = issued.get(); n < due; n++)
+                        batch.add(origin + n * intervalNanos);
+                    issued.set(Math.max(issued.get(), due));
+                    return batch;
+                })
+                .flatMap(intended -> execute(pick(weights), intended), Integer.MAX_VALUE)
+                .blockLast(length.plusMinutes(1));
+    }
+
+    private Mono<Void> execute(Operation operation, long intendedStart) {
+        return send(operation)
+                .doOnNext(status -> {
+                    var recorder = recorders.get(operation);
+                    if (recorder != null)
+                        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+                    if (status >= 300 && errors.containsKey(operation))
+                        errors.get(operation).increment();
+                })
+                .onErrorResume(e -> {
+                    if (errors.containsKey(operation))
+                        errors.get(operation).increment();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Integer> send(Operation operation) {
+        var random = ThreadLocalRandom.current();
+        var index = random.nextInt(skus);
+        var sku = "FAL-" + (SKU_BASE + index);
+        switch (operation) {
+            case CREATE:
+                return json(client().post().uri("/"), body(null, "FAL-" + nextSku.getAndIncrement()));
+            case UPDATE:
+                return json(client().put().uri("/"), body(ids[index], sku));
+            case DELETE:
+                return client.delete().uri("/" + sku).responseSingle((r, content) -> content.then(Mono.just(r.status().code())));
+            default:
+                return client.get().uri("/" + sku).responseSingle((r, content) -> content.then(Mono.just(r.status().code())));
+        }
+    }
+
+    private Mono<Integer> json(HttpClient.RequestSender sender, String body) {
+        return sender.send(ByteBufFlux.fromString(Mono.just(body)))
+                .responseSingle((r, content) -> content.then(Mono.just(r.status().code())));
+    }
+
+    private String body(Long id, String sku) {
+        return (id == null ? "{" : "{\"id\":" + id + ",")
+                + "\"sku\":\"" + sku + "\",\"name\":\"load_name\",\"brand\":\"load_brand\",\"size\":\"L\",\"price\":"
+                + ThreadLocalRandom.current().nextInt(1, 1000) + ".0}";
+    }
+
+    private HttpClient client() {
+        return client.headers(h -> h.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON));
+    }
+
+    private long report(double elapsedSeconds) throws IOException {
+        var directory = Files.createDirectories(Path.of("target", "load-test"));
+        var all = new Histogram(3);
+        var totalErrors = 0L;
+        System.out.printf("%n%-8s %10s %10s %8s %10s %10s %10s%n", "op", "count", "req/s", "errors", "p50(us)", "p99(us)", "p999(us)");
+        for (Operation operation : Operation.values()) {
+            var histogram = recorders.get(operation).getIntervalHistogram();
+            all.add(histogram);
+            var failed = errors.get(operation).sum();
+            totalErrors += failed;
+            print(operation.name(), histogram, failed, elapsedSeconds);
+            try (var out = new PrintStream(new FileOutputStream(directory.resolve(operation.name().toLowerCase() + ".hgrm").toFile()))) {
+                histogram.outputPercentileDistribution(out, 1.0);
+            }
+        }
+        print("ALL", all, totalErrors, elapsedSeconds);
+        try (var out = new PrintStream(new FileOutputStream(directory.resolve("all.hgrm").toFile()))) {
+            all.outputPercentileDistribution(out, 1.0);
+        }
+        return all.getTotalCount();
+    }
+
+    private static void print(String name, Histogram histogram, long errors, double elapsedSeconds) {
+        System.out.printf("%-8s %10d %10.1f %8d %10d %10d %10d%n", name, histogram.getTotalCount(),
+                histogram.getTotalCount() / elapsedSeconds, errors,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9));
+    }
+
+    private Operation pick(int[] weights) {
+        var roll = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+        for (int i = 0; i < weights.length; i++)
+            if (roll < weights[i])
+                return Operation.values()[i];
+        return Operation.GET;
+    }
+
+    /**
+     * @return cumulative weights in {@link Operation} order
+     */
+    private static int[] parseMix(String mix) {
+        var weights = new int[Operation.values().length];
+        for (String entry : mix.split(",")) {
+            var pair = entry.trim().split(":");
+            weights[Operation.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        for (int i = 1; i < weights.length; i++)
+            weights[i] += weights[i - 1];
+        if (weights[weights.length - 1] <= 0)
+            throw new IllegalArgumentException("load.mix has no weight: " + mix);
+        return weights;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the requests in flight with a limit that adapts to their latency, additive increase and multiplicative
+ * decrease: after {@code limit} requests in a row finished within {@code latencyTarget} while at least half the
+ * limit was in use, it grows by one; a request slower than the target shrinks it by {@code backoff}, at most once
+ * per {@code latencyTarget} so a burst of slow responses counts as one signal. {@code minLimit == maxLimit}
+ * gives a fixed limit. Everything is kept in atomics.
+ */
+final class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTarget;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger fastInARow = new AtomicInteger();
+    private final AtomicLong lastDecrease;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, long now) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTarget = latencyTargetNanos;
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+        this.lastDecrease = new AtomicLong(now - latencyTargetNanos);
+    }
+
+    boolean tryAcquire() {
+        if (inFlight.incrementAndGet() <= limit.get())
+            return true;
+        inFlight.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * @param latency nanoseconds the request took, or a negative value when it did not complete normally and
+     *                says nothing about capacity
+     */
+    void release(long latency, long now) {
+        var used = inFlight.getAndDecrement();
+        if (latency < 0)
+            return;
+
+        var current = limit.get();
+        if (latency > latencyTarget) {
+            fastInARow.set(0);
+            var last = lastDecrease.get();
+            if (now - last >= latencyTarget && lastDecrease.compareAndSet(last, now))
+                limit.compareAndSet(current, Math.max(minLimit, (int) (current * BACKOFF)));
+        } else if (used * 2 >= current && fastInARow.incrementAndGet() >= current) {
+            fastInARow.set(0);
+            limit.compareAndSet(current, Math.min(maxLimit, current + 1));
+        }
+    }
+
+    int getLimit() {
+        return limit.get();
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.exception.DomainException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of {@code /product}. Each client, told apart by {@link ClientIdentity}, has a token bucket of {@code product.admission.rate} requests per second and
+ * {@code product.admission.burst}; a rate of {@code 0} turns the buckets off. All clients together share an
+ * {@link AdaptiveConcurrencyLimit}, except for the long-lived streams of {@code product.admission.streaming-paths}.
+ * <p>
+ * A rejected request never reaches the controller: it fails with a shared {@link DomainException}, rendered by
+ * {@link HandlerConfig}, after {@code Retry-After} is set. Rejections are counted as
+ * {@code product.admission.rejected{reason=rate|concurrency}}.
+ */
+@Component
+public class AdmissionFilter implements WebFilter {
+    private static final String PATH_PREFIX = "/product";
+    private static final String OVERLOADED_RETRY_AFTER_SECONDS = "1";
+
+    private final boolean enabled;
+    private final ClientIdentity clientIdentity;
+    private final List<String> streamingPaths;
+    private final TokenBuckets buckets;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Counter rateRejected;
+    private final Counter concurrencyRejected;
+
+    public AdmissionFilter(@Value("${product.admission.enabled:true}") boolean enabled,
+                           ClientIdentity clientIdentity,
+                           @Value("${product.admission.rate:100}") double rate,
+                           @Value("${product.admission.burst:200}") int burst,
+                           @Value("${product.admission.idle-timeout:10m}") Duration idleTimeout,
+                           @Value("${product.admission.max-clients:100000}") long maxClients,
+                           @Value("${product.admission.initial-limit:128}") int initialLimit,
+                           @Value("${product.admission.min-limit:16}") int minLimit,
+                           @Value("${product.admission.max-limit:1024}") int maxLimit,
+                           @Value("${product.admission.latency-target:250ms}") Duration latencyTarget,
+                           @Value("${product.admission.streaming-paths:/product/changes,/product/export}") List<String> streamingPaths,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.clientIdentity = clientIdentity;
+        this.streamingPaths = streamingPaths;
+        this.buckets = rate > 0 ? new TokenBuckets(rate, burst, idleTimeout, maxClients) : null;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, latencyTarget.toNanos(), System.nanoTime());
+        this.rateRejected = Counter.builder("product.admission.rejected").tag("reason", "rate").register(meterRegistry);
+        this.concurrencyRejected = Counter.builder("product.admission.rejected").tag("reason", "concurrency").register(meterRegistry);
+        Gauge.builder("product.admission.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder("product.admission.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+        if (buckets != null)
+            Gauge.builder("product.admission.clients", buckets, TokenBuckets::size).register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!enabled || !path.startsWith(PATH_PREFIX))
+            return chain.filter(exchange);
+
+        if (buckets != null) {
+            var wait = buckets.tryAcquire(clientIdentity.of(exchange));
+            if (wait > 0) {
+                rateRejected.increment();
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(toSecondsCeil(wait)));
+                return Mono.error(DomainException.RATE_LIMITED);
+            }
+        }
+
+        if (streamingPaths.contains(path))
+            return chain.filter(exchange);
+
+        if (!concurrencyLimit.tryAcquire()) {
+            concurrencyRejected.increment();
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, OVERLOADED_RETRY_AFTER_SECONDS);
+            return Mono.error(DomainException.OVERLOADED);
+        }
+
+        var started = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    var now = System.nanoTime();
+                    concurrencyLimit.release(signal == SignalType.CANCEL ? -1 : now - started, now);
+                });
+    }
+
+    private static long toSecondsCeil(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Who sent a request: the value of {@code product.admission.client-header}, or else the remote address. Rate
+ * limits are kept per client and {@code Idempotency-Key}s are scoped to one.
+ */
+@Component
+public class ClientIdentity {
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final String header;
+
+    public ClientIdentity(@Value("${product.admission.client-header:X-API-Key}") String header) {
+        this.header = header;
+    }
+
+    public String of(ServerWebExchange exchange) {
+        var key = exchange.getRequest().getHeaders().getFirst(header);
+        if (key != null)
+            return key;
+
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null)
+            return UNKNOWN_CLIENT;
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encodings for internal callers, chosen with {@code Accept} and {@code Content-Type} like JSON:
+ * {@code application/cbor} and {@code application/x-jackson-smile}. Every mapper comes from the
+ * {@link Jackson2ObjectMapperBuilder} of Boot, JSON being its {@link ObjectMapper}, so {@code spring.jackson.*},
+ * {@code Module} beans and builder customizers apply to all three and payloads differ only in their encoding.
+ * <p>
+ * Smile streams, like NDJSON, as {@code application/stream+x-jackson-smile}. The CBOR codec of Spring only
+ * handles single values, so a {@link Flux} is written as one CBOR array once it completes; only bounded
+ * results such as a search page should be requested as CBOR.
+ * <p>
+ * With {@code product.timing.enabled} the JSON codecs add to the {@code decode} and {@code encode} stages of
+ * {@link RequestTimings}. Only parsing a whole body counts as decoding, not waiting for it to arrive, and a streamed
+ * body, decoded as it is consumed, is not timed.
+ */
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            APPLICATION_SMILE, MimeType.valueOf("application/*+x-jackson-smile"), MimeType.valueOf(APPLICATION_STREAM_SMILE_VALUE)};
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+    private final boolean timing;
+
+    public CodecConfig(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder,
+                       @Value("${product.timing.enabled:false}") boolean timing) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = cborMapper(objectMapperBuilder);
+        this.smileMapper = smileMapper(objectMapperBuilder);
+        this.timing = timing;
+    }
+
+    /**
+     * Custom codecs are consulted before the default JSON one, so JSON is registered again ahead of CBOR to
+     * stay the answer to {@code Accept: *}{@code /*}. Without explicit MIME types the Jackson binary codecs
+     * would claim JSON.
+     */
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE_MIME_TYPES));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+        configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(jsonMapper));
+        configurer.defaultCodecs().jackson2JsonDecoder(timing ? new TimedJsonDecoder(jsonMapper) : new Jackson2JsonDecoder(jsonMapper));
+
+        configurer.customCodecs().registerWithDefaultConfig(timing ? new TimedJsonEncoder(jsonMapper) : new Jackson2JsonEncoder(jsonMapper));
+        configurer.customCodecs().registerWithDefaultConfig(new CollectingCborEncoder(cborMapper));
+        configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+    }
+
+    /**
+     * Builds a CBOR mapper with the settings of {@code builder}, whose factory it replaces.
+     */
+    public static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory()).build();
+    }
+
+    /**
+     * Builds a Smile mapper with the settings of {@code builder}, whose factory it replaces.
+     */
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new SmileFactory()).build();
+    }
+
+    /**
+     * Writes a {@link Flux} as a single CBOR array instead of rejecting it.
+     */
+    private static final class CollectingCborEncoder extends Jackson2CborEncoder {
+
+        private CollectingCborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono)
+                return Mono.from(inputStream)
+                        .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                        .flux();
+
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, ResolvableType.forClassWithGenerics(List.class, elementType), mimeType, hints))
+                    .flux();
+        }
+    }
+
+    /**
+     * Times each value from its arrival, or from the end of the stream for a value collected from it, to its
+     * encoded bytes.
+     */
+    private static final class TimedJsonEncoder extends Jackson2JsonEncoder {
+
+        private TimedJsonEncoder(ObjectMapper mapper) {
+            super(mapper);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            return Flux.deferContextual(context -> {
+                var timings = RequestTimings.from(context);
+                if (timings == null)
+                    return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+
+                var received = new long[1];
+                Publisher<?> timed = inputStream instanceof Mono
+                        ? Mono.from(inputStream).doOnEach(signal -> received[0] = System.nanoTime())
+                        : Flux.from(inputStream).doOnEach(signal -> received[0] = System.nanoTime());
+                return super.encode(timed, bufferFactory, elementType, mimeType, hints)
+                        .doOnNext(buffer -> timings.add(RequestTimings.Stage.ENCODE, System.nanoTime() - received[0]));
+            });
+        }
+    }
+
+    /**
+     * Times a whole body from its last byte to the decoded value.
+     */
+    private static final class TimedJsonDecoder extends Jackson2JsonDecoder {
+
+        private TimedJsonDecoder(ObjectMapper mapper) {
+            super(mapper);
+        }
+
+        @Override
+        public Mono<Object> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType,
+                                         Map<String, Object> hints) {
+            return Mono.deferContextual(context -> {
+                var timings = RequestTimings.from(context);
+                if (timings == null)
+                    return super.decodeToMono(input, elementType, mimeType, hints);
+
+                var received = new long[1];
+                return super.decodeToMono(Flux.from(input).doOnEach(signal -> received[0] = System.nanoTime()), elementType, mimeType, hints)
+                        .doOnNext(value -> timings.add(RequestTimings.Stage.DECODE, System.nanoTime() - received[0]));
+            });
+        }
+    }
+}
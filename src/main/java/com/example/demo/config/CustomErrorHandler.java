@@ -1,6 +1,7 @@
 package com.example.demo.config;
 
 import com.example.demo.domain.dto.MessageDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,6 +13,12 @@ import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class CustomErrorHandler {
+    private final ErrorMetrics errorMetrics;
+
+    public CustomErrorHandler(MeterRegistry meterRegistry) {
+        this.errorMetrics = new ErrorMetrics(meterRegistry, "CustomErrorHandler");
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public ResponseEntity<List<MessageDTO>> handleException(WebExchangeBindException e) {
         var errors = e.getBindingResult()
@@ -19,6 +26,7 @@ public class CustomErrorHandler {
                 .stream()
                 .map(el -> new MessageDTO(el.getDefaultMessage()))
                 .collect(Collectors.toList());
+        errorMetrics.increment(HttpStatus.UNPROCESSABLE_ENTITY);
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errors);
     }
 }
@@ -0,0 +1,38 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@code product.errors} counters tagged by the handler that rendered the error and its status,
+ * registered on first use and then looked up by status code without allocating.
+ */
+final class ErrorMetrics {
+    private static final String METRIC_NAME = "product.errors";
+    private static final int UNKNOWN = 0;
+
+    private final MeterRegistry meterRegistry;
+    private final String handler;
+    private final AtomicReferenceArray<Counter> counters = new AtomicReferenceArray<>(600);
+
+    ErrorMetrics(MeterRegistry meterRegistry, String handler) {
+        this.meterRegistry = meterRegistry;
+        this.handler = handler;
+    }
+
+    void increment(HttpStatus status) {
+        var code = status == null ? UNKNOWN : status.value();
+        var counter = counters.get(code);
+        if (counter == null) {
+            counter = Counter.builder(METRIC_NAME)
+                    .tag("handler", handler)
+                    .tag("status", code == UNKNOWN ? "UNKNOWN" : String.valueOf(code))
+                    .register(meterRegistry);
+            counters.set(code, counter);
+        }
+        counter.increment();
+    }
+}
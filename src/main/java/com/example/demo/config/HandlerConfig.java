@@ -1,53 +1,126 @@
 package com.example.demo.config;
 
 import com.example.demo.domain.dto.MessageDTO;
+import com.example.demo.domain.exception.DomainException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.server.reactive.ServerHttpResponse;
-import org.springframework.validation.FieldError;
-import org.springframework.web.bind.MethodArgumentNotValidException;
-import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.pool.PoolAcquirePendingLimitException;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
 @Slf4j
 public class HandlerConfig implements ErrorWebExceptionHandler {
+    private static final String POOL_EXHAUSTED_MESSAGE = "database busy, retry later";
+    private static final String RETRY_AFTER_SECONDS = "1";
 
+    private final ErrorMetrics errorMetrics;
+    private final List<ErrorFormat> formats;
+
+    public HandlerConfig(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder, MeterRegistry meterRegistry) {
+        this.errorMetrics = new ErrorMetrics(meterRegistry, "HandlerConfig");
+        this.formats = List.of(
+                new ErrorFormat(MediaType.APPLICATION_JSON, objectMapper),
+                new ErrorFormat(MediaType.APPLICATION_CBOR, CodecConfig.cborMapper(objectMapperBuilder)),
+                new ErrorFormat(CodecConfig.APPLICATION_SMILE, CodecConfig.smileMapper(objectMapperBuilder)));
+    }
+
+    /**
+     * Errors are written in the first format of {@code Accept} that is JSON, CBOR or Smile, JSON otherwise.
+     * Fixed errors are written from bodies serialized once at startup; only errors with a dynamic
+     * message go through the {@link ObjectMapper} of the format.
+     */
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
         ServerHttpResponse httpResponse = exchange.getResponse();
-        httpResponse.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-        setResponseStatus(httpResponse, ex);
-        return httpResponse.writeWith(Mono.fromSupplier(() -> {
-            DataBufferFactory bufferFactory = httpResponse.bufferFactory();
+        var format = negotiate(exchange);
+        httpResponse.getHeaders().set(HttpHeaders.CONTENT_TYPE, format.mediaType.toString());
+
+        byte[] body;
+        if (ex instanceof DomainException) {
+            var domainException = (DomainException) ex;
+            httpResponse.setStatusCode(domainException.getStatus());
+            body = format.fixedBodies.get(domainException);
+            if (body == null)
+                body = format.serialize(domainException.getMessage());
+        } else if (isPoolExhausted(ex)) {
+            httpResponse.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            httpResponse.getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            body = format.poolExhaustedBody;
+        } else {
+            log.error(ex.getMessage());
+            httpResponse.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+            body = format.internalErrorBody;
+        }
+
+        errorMetrics.increment(httpResponse.getStatusCode());
+        httpResponse.getHeaders().setContentLength(body.length);
+        return httpResponse.writeWith(Mono.just(httpResponse.bufferFactory().wrap(body)));
+    }
+
+    private ErrorFormat negotiate(ServerWebExchange exchange) {
+        var accepted = exchange.getRequest().getHeaders().getAccept();
+        if (accepted.isEmpty())
+            return formats.get(0);
+
+        var preferred = new ArrayList<>(accepted);
+        MediaType.sortBySpecificityAndQuality(preferred);
+        for (MediaType mediaType : preferred)
+            for (ErrorFormat format : formats)
+                if (mediaType.isCompatibleWith(format.mediaType))
+                    return format;
+        return formats.get(0);
+    }
+
+    private static final class ErrorFormat {
+        private final MediaType mediaType;
+        private final ObjectMapper objectMapper;
+        private final Map<DomainException, byte[]> fixedBodies = new IdentityHashMap<>();
+        private final byte[] poolExhaustedBody;
+        private final byte[] internalErrorBody;
+
+        private ErrorFormat(MediaType mediaType, ObjectMapper objectMapper) {
+            this.mediaType = mediaType;
+            this.objectMapper = objectMapper;
+            for (DomainException fixed : DomainException.fixed())
+                fixedBodies.put(fixed, serialize(fixed.getMessage()));
+            this.poolExhaustedBody = serialize(POOL_EXHAUSTED_MESSAGE);
+            this.internalErrorBody = serialize("");
+        }
+
+        private byte[] serialize(String message) {
             try {
-                String errMsgToSend = (httpResponse.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR) ? "" : ex.getMessage();
-                return bufferFactory.wrap(new ObjectMapper().writeValueAsBytes(new MessageDTO(errMsgToSend)));
+                return objectMapper.writeValueAsBytes(new MessageDTO(message));
             } catch (JsonProcessingException e) {
-                return bufferFactory.wrap(new byte[0]);
+                return new byte[0];
             }
-        }));
+        }
     }
 
-    private void setResponseStatus(ServerHttpResponse httpResponse, Throwable ex) {
-        if (ex instanceof HttpClientErrorException) {
-            httpResponse.setStatusCode(((HttpClientErrorException) ex).getStatusCode());
-        } else {
-            log.error(ex.getMessage());
-            httpResponse.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+    /**
+     * A connection could not be acquired in {@code spring.r2dbc.pool.max-acquire-time} or too many callers
+     * were already waiting for one; Spring wraps both in its own data access exceptions. A statement that times
+     * out is not retryable pool exhaustion and stays an internal error.
+     */
+    private static boolean isPoolExhausted(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PoolAcquirePendingLimitException || cause instanceof R2dbcPoolConfig.AcquireTimeoutException)
+                return true;
         }
+        return false;
     }
 }
@@ -0,0 +1,105 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+import reactor.pool.PoolAcquirePendingLimitException;
+
+/**
+ * Replaces Boot's pooled connection factory to bound the number of callers waiting for a connection
+ * ({@code product.r2dbc.pool.max-pending-acquire}) and to time every acquisition as {@code r2dbc.pool.acquire}.
+ * An acquisition that times out fails with an {@link AcquireTimeoutException}, so it is not mistaken for a
+ * statement that timed out.
+ * Sizes, timeouts and validation keep their {@code spring.r2dbc.pool.*} properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.r2dbc.pool.enabled", havingValue = "true", matchIfMissing = true)
+public class R2dbcPoolConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(R2dbcProperties properties, MeterRegistry meterRegistry,
+                                            @Value("${product.r2dbc.pool.max-pending-acquire:256}") int maxPendingAcquire) {
+        var map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        var connectionFactoryBuilder = ConnectionFactoryBuilder.withUrl(properties.getUrl());
+        map.from(properties.getUsername()).to(connectionFactoryBuilder::username);
+        map.from(properties.getPassword()).to(connectionFactoryBuilder::password);
+
+        var pool = properties.getPool();
+        var builder = ConnectionPoolConfiguration.builder(connectionFactoryBuilder.build())
+                .name("connectionFactory")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .validationDepth(pool.getValidationDepth())
+                .customizer(poolBuilder -> poolBuilder.maxPendingAcquire(maxPendingAcquire));
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getValidationQuery()).when(StringUtils::hasText).to(builder::validationQuery);
+
+        return new InstrumentedConnectionPool(builder.build(), meterRegistry);
+    }
+
+    static class InstrumentedConnectionPool extends ConnectionPool {
+        private static final String METRIC_NAME = "r2dbc.pool.acquire";
+
+        private final MeterRegistry meterRegistry;
+        private final Timer acquired;
+        private final Timer timedOut;
+        private final Timer rejected;
+        private final Timer failed;
+
+        InstrumentedConnectionPool(ConnectionPoolConfiguration configuration, MeterRegistry meterRegistry) {
+            super(configuration);
+            this.meterRegistry = meterRegistry;
+            this.acquired = timer("success");
+            this.timedOut = timer("timeout");
+            this.rejected = timer("rejected");
+            this.failed = timer("error");
+        }
+
+        @Override
+        public Mono<Connection> create() {
+            var acquire = super.create();
+            return Mono.defer(() -> {
+                var sample = Timer.start(meterRegistry);
+                return acquire
+                        .doOnNext(__ -> sample.stop(acquired))
+                        .doOnError(e -> sample.stop(e instanceof R2dbcTimeoutException ? timedOut
+                                : e instanceof PoolAcquirePendingLimitException ? rejected
+                                : failed))
+                        .onErrorMap(R2dbcTimeoutException.class, AcquireTimeoutException::new);
+            });
+        }
+
+        private Timer timer(String outcome) {
+            return Timer.builder(METRIC_NAME)
+                    .tag("name", "connectionFactory")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * No connection was acquired within {@code spring.r2dbc.pool.max-acquire-time}.
+     */
+    static final class AcquireTimeoutException extends R2dbcTimeoutException {
+
+        AcquireTimeoutException(R2dbcTimeoutException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records {@code product.repository.calls} timers tagged by repository, method and terminal signal.
+ */
+class RepositoryMetricsInterceptor implements MethodInterceptor {
+    private static final String METRIC_NAME = "product.repository.calls";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final String repository;
+    private final Map<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+    RepositoryMetricsInterceptor(ObjectProvider<MeterRegistry> meterRegistry, String repository) {
+        this.meterRegistry = meterRegistry;
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        var result = invocation.proceed();
+        var registry = meterRegistry.getIfAvailable();
+        if (registry == null)
+            return result;
+
+        var method = invocation.getMethod();
+        if (result instanceof Mono)
+            return Mono.defer(() -> {
+                var sample = Timer.start(registry);
+                return ((Mono<?>) result).doFinally(signal -> sample.stop(timer(registry, method, signal)));
+            });
+        if (result instanceof Flux)
+            return Flux.defer(() -> {
+                var sample = Timer.start(registry);
+                return ((Flux<?>) result).doFinally(signal -> sample.stop(timer(registry, method, signal)));
+            });
+        return result;
+    }
+
+    private Timer timer(MeterRegistry registry, Method method, SignalType signal) {
+        var bySignal = timers.computeIfAbsent(method, __ -> new Timer[SignalType.values().length]);
+        var timer = bySignal[signal.ordinal()];
+        if (timer == null) {
+            timer = Timer.builder(METRIC_NAME)
+                    .tag("repository", repository)
+                    .tag("method", method.getName())
+                    .tag("signal", signal.toString())
+                    .publishPercentileHistogram()
+                    .register(registry);
+            bySignal[signal.ordinal()] = timer;
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adds every reactive repository call, from subscription to termination, to the {@code db} stage of the request
+ * it runs for. Calls made outside a timed request are left alone. A {@code Mono} is timed up to its value rather
+ * than its completion, which only arrives after the value has gone on to be encoded and written.
+ */
+class RepositoryTimingInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        var result = invocation.proceed();
+        if (result instanceof Mono)
+            return timed((Mono<?>) result);
+        if (result instanceof Flux)
+            return timed((Flux<?>) result);
+        return result;
+    }
+
+    private static <T> Mono<T> timed(Mono<T> call) {
+        return Mono.deferContextual(context -> {
+            var timings = RequestTimings.from(context);
+            if (timings == null)
+                return call;
+
+            var started = System.nanoTime();
+            var recorded = new AtomicBoolean();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true))
+                    timings.add(RequestTimings.Stage.DB, System.nanoTime() - started);
+            };
+            return call.doOnEach(signal -> record.run()).doOnCancel(record);
+        });
+    }
+
+    private static <T> Flux<T> timed(Flux<T> call) {
+        return Flux.deferContextual(context -> {
+            var timings = RequestTimings.from(context);
+            if (timings == null)
+                return call;
+
+            var started = System.nanoTime();
+            return call.doFinally(signal -> timings.add(RequestTimings.Stage.DB, System.nanoTime() - started));
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-request stage timing, registered only with {@code product.timing.enabled}, so a disabled application has
+ * no filter, advice or interceptor on its request path. {@link RequestTimingFilter} starts the timings, JSON
+ * decoding and encoding are timed by the codecs of {@link CodecConfig}, validation by {@link ValidationTimingAdvice}
+ * and repository I/O by {@link RepositoryTimingInterceptor}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.timing.enabled", havingValue = "true")
+public class RequestTimingConfig {
+
+    @Bean
+    RequestTimingFilter requestTimingFilter(@Value("${product.timing.server-timing-header:true}") boolean serverTimingHeader,
+                                            @Value("${product.timing.slow-threshold:500ms}") Duration slowThreshold,
+                                            @Value("${product.timing.slow-sample-rate:0.1}") double slowSampleRate) {
+        return new RequestTimingFilter(serverTimingHeader, slowThreshold.toNanos(), slowSampleRate);
+    }
+
+    @Bean
+    ValidationTimingAdvice validationTimingAdvice() {
+        return new ValidationTimingAdvice();
+    }
+
+    @Bean
+    public static BeanPostProcessor repositoryTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(new RepositoryTimingInterceptor())));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * {@code @Valid} bodies are validated synchronously by the data binder, out of reach of the Reactor
+     * {@code Context}, so the validators of each binder are wrapped with the timings of its exchange instead.
+     */
+    @ControllerAdvice
+    static class ValidationTimingAdvice {
+
+        @InitBinder
+        public void timeValidation(WebDataBinder binder, ServerWebExchange exchange) {
+            var timings = RequestTimings.from(exchange);
+            if (timings == null || binder.getValidators().isEmpty())
+                return;
+
+            var validators = List.copyOf(binder.getValidators());
+            binder.replaceValidators(new Validator() {
+                @Override
+                public boolean supports(Class<?> clazz) {
+                    return true;
+                }
+
+                @Override
+                public void validate(Object target, Errors errors) {
+                    var started = System.nanoTime();
+                    for (Validator validator : validators)
+                        if (validator.supports(target.getClass()))
+                            validator.validate(target, errors);
+                    timings.add(RequestTimings.Stage.VALIDATE, System.nanoTime() - started);
+                }
+            });
+        }
+    }
+}
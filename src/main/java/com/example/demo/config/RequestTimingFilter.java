@@ -0,0 +1,83 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.exception.DomainException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts the {@link RequestTimings} of every {@code /product} request, ahead of every other filter, and reports them:
+ * as a {@code Server-Timing} header when {@code serverTimingHeader} is set, and in the slow-request log for a
+ * {@code slowSampleRate} fraction of the requests that took {@code slowThresholdNanos} or longer.
+ * <p>
+ * The header is written as the response commits, so a streamed response only reports the stages before its first
+ * element while the log, written when the response completes, has them all.
+ */
+@Slf4j
+final class RequestTimingFilter implements WebFilter, Ordered {
+    private static final String PATH_PREFIX = "/product";
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final boolean serverTimingHeader;
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+
+    RequestTimingFilter(boolean serverTimingHeader, long slowThresholdNanos, double slowSampleRate) {
+        this.serverTimingHeader = serverTimingHeader;
+        this.slowThresholdNanos = slowThresholdNanos;
+        this.slowSampleRate = slowSampleRate;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getPath().pathWithinApplication().value().startsWith(PATH_PREFIX))
+            return chain.filter(exchange);
+
+        var timings = new RequestTimings();
+        exchange.getAttributes().put(RequestTimings.ATTRIBUTE, timings);
+        if (serverTimingHeader)
+            exchange.getResponse().beforeCommit(() -> {
+                exchange.getResponse().getHeaders().set(SERVER_TIMING, timings.serverTiming(timings.elapsed()));
+                return Mono.empty();
+            });
+
+        return chain.filter(exchange)
+                .doOnSuccess(__ -> {
+                    var status = exchange.getResponse().getRawStatusCode();
+                    logIfSlow(exchange, timings, status == null ? 200 : status);
+                })
+                .doOnError(e -> logIfSlow(exchange, timings, statusOf(e)))
+                .contextWrite(context -> context.put(RequestTimings.class, timings));
+    }
+
+    private void logIfSlow(ServerWebExchange exchange, RequestTimings timings, int status) {
+        var elapsed = timings.elapsed();
+        if (elapsed < slowThresholdNanos || ThreadLocalRandom.current().nextDouble() >= slowSampleRate)
+            return;
+
+        var request = exchange.getRequest();
+        log.warn("slow request {} {} {}: {}", request.getMethodValue(), request.getPath().value(), status, timings.serverTiming(elapsed));
+    }
+
+    /**
+     * Errors reach the error handlers after this filter, so the status they will be rendered with is derived here.
+     */
+    private static int statusOf(Throwable e) {
+        if (e instanceof DomainException)
+            return ((DomainException) e).getStatus().value();
+        if (e instanceof ResponseStatusException)
+            return ((ResponseStatusException) e).getRawStatusCode();
+        return 500;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.config;
+
+import org.springframework.web.server.ServerWebExchange;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time one request spent in each {@link Stage}, carried in the Reactor {@code Context} under this class and, for
+ * validation, which runs outside the pipeline, in the exchange attributes. A stage that runs several times, such as
+ * the repository calls of one request, reports their sum, and since they may overlap or run on different threads
+ * durations are added atomically.
+ */
+final class RequestTimings {
+    static final String ATTRIBUTE = RequestTimings.class.getName();
+
+    enum Stage {
+        DECODE("decode"), VALIDATE("validate"), DB("db"), ENCODE("encode");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long started = System.nanoTime();
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+
+    static RequestTimings from(ContextView context) {
+        return context.getOrDefault(RequestTimings.class, null);
+    }
+
+    static RequestTimings from(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+
+    void add(Stage stage, long nanos) {
+        this.nanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+    long get(Stage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    long elapsed() {
+        return System.nanoTime() - started;
+    }
+
+    /**
+     * @return a {@code Server-Timing} value such as {@code db;dur=1.84, encode;dur=0.09, total;dur=2.31}, in
+     * milliseconds, leaving out the stages the request did not go through
+     */
+    String serverTiming(long total) {
+        var value = new StringBuilder(96);
+        for (Stage stage : STAGES) {
+            var stageNanos = get(stage);
+            if (stageNanos > 0)
+                appendMillis(value.append(stage.metricName).append(";dur="), stageNanos).append(", ");
+        }
+        return appendMillis(value.append("total;dur="), total).toString();
+    }
+
+    private static StringBuilder appendMillis(StringBuilder value, long nanos) {
+        var hundredths = (nanos + 5_000) / 10_000;
+        var fraction = hundredths % 100;
+        return value.append(hundredths / 100).append(fraction < 10 ? ".0" : ".").append(fraction);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.cache.ProductSnapshot;
+import com.example.demo.domain.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Builds the product snapshot once the application has started and rebuilds it every
+ * {@code product.snapshot.rebuild-interval}, or never again when the interval is zero. A failed rebuild is
+ * logged and the next one runs on schedule.
+ */
+@Slf4j
+@Configuration
+public class SnapshotConfig {
+
+    @Bean
+    ApplicationRunner snapshotRebuild(ProductService productService, ProductSnapshot snapshot,
+                                      @Value("${product.snapshot.rebuild-interval:1h}") Duration rebuildInterval) {
+        return arguments -> {
+            if (!snapshot.isEnabled())
+                return;
+
+            var ticks = rebuildInterval.isZero() ? Flux.just(0L) : Flux.interval(Duration.ZERO, rebuildInterval).onBackpressureDrop();
+            ticks.concatMap(tick -> productService.rebuildSnapshot()
+                            .doOnSuccess(__ -> log.info("product snapshot rebuilt"))
+                            .onErrorResume(e -> {
+                                log.warn("product snapshot rebuild failed: {}", e.toString());
+                                return Mono.empty();
+                            }), 1)
+                    .subscribe();
+        };
+    }
+}
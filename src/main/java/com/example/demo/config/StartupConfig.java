@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.sql.init.AbstractScriptDatabaseInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Startup tuning used by the {@code fast-startup} profile.
+ * <p>
+ * With {@code spring.main.lazy-initialization} the connection pool, the schema initializer and the meters stay
+ * eager, so the pool is created and {@code schema.sql} applied up front and every meter is registered before the
+ * first scrape.
+ * <p>
+ * {@code product.startup.warmup-rounds} rounds of requests are sent to {@code ProductController} before the
+ * application reports ready, so lazy beans, codecs, the validator and the JIT are warm when traffic arrives.
+ * Only reads and rejected creates are sent, so nothing is written. With {@code product.startup.exit-after-warmup}
+ * the JVM exits afterwards, which is how the AppCDS training run of the {@code fast-startup} Maven profile ends.
+ */
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerInfrastructure() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ConnectionFactory.class, AbstractScriptDatabaseInitializer.class,
+                MeterRegistry.class, MeterBinder.class);
+    }
+
+    @Bean
+    ApplicationRunner warmup(ConfigurableApplicationContext context, Environment environment,
+                             @Value("${product.startup.warmup-rounds:0}") int warmupRounds,
+                             @Value("${product.startup.warmup-timeout:30s}") Duration warmupTimeout,
+                             @Value("${product.startup.exit-after-warmup:false}") boolean exitAfterWarmup) {
+        return arguments -> {
+            if (warmupRounds > 0)
+                warmup(environment.getProperty("local.server.port", Integer.class), warmupRounds, warmupTimeout);
+            if (exitAfterWarmup)
+                System.exit(SpringApplication.exit(context));
+        };
+    }
+
+    private static void warmup(Integer port, int rounds, Duration timeout) {
+        if (port == null) {
+            log.warn("warmup skipped, no local server port");
+            return;
+        }
+
+        var started = System.nanoTime();
+        var client = WebClient.create("http://localhost:" + port + "/product");
+        var statuses = Flux.range(0, rounds)
+                .concatMap(i -> Flux.concat(
+                        status(client.get().uri("/FAL-{number}", 1000000 + i)),
+                        status(client.get().uri("?skus=FAL-{number}", 1000000 + i)),
+                        status(client.get().uri("?limit=1")),
+                        status(client.post().uri("/bulk")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .bodyValue("{\"sku\":\"warmup\",\"name\":\"warmup\",\"brand\":\"warmup\",\"size\":\"L\",\"price\":1.0}\n"))))
+                .collectList()
+                .timeout(timeout)
+                .onErrorResume(e -> {
+                    log.warn("warmup stopped: {}", e.toString());
+                    return Mono.just(List.of());
+                })
+                .block();
+        var failed = statuses.stream().filter(status -> status >= 500).count();
+        if (failed > 0)
+            log.warn("warmup got {} server errors", failed);
+        log.info("warmup sent {} requests in {} ms", statuses.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private static Mono<Integer> status(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+    }
+}
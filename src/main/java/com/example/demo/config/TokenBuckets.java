@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * One token bucket per client, refilled at {@code rate} tokens per second up to {@code burst}. Each bucket is a
+ * single {@link AtomicLong} holding the time at which it will be full again (the generic cell rate algorithm),
+ * so taking a token is one compare-and-set and needs no lock. Buckets live in a Caffeine cache, which is
+ * striped internally, and disappear after {@code idleTimeout} without requests, at which point they would be
+ * full anyway.
+ */
+final class TokenBuckets {
+    private final long interval;
+    private final long tolerance;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    TokenBuckets(double rate, int burst, Duration idleTimeout, long maxClients, LongSupplier nanoClock) {
+        this.interval = (long) (1_000_000_000L / rate);
+        this.tolerance = interval * (burst - 1L);
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxClients)
+                .ticker(nanoClock::getAsLong)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    TokenBuckets(double rate, int burst, Duration idleTimeout, long maxClients) {
+        this(rate, burst, idleTimeout, maxClients, Ticker.systemTicker()::read);
+    }
+
+    /**
+     * @return {@code 0} when a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    long tryAcquire(String client) {
+        var bucket = buckets.get(client, __ -> new AtomicLong(Long.MIN_VALUE));
+        var now = nanoClock.getAsLong();
+        while (true) {
+            var full = bucket.get();
+            var next = (full == Long.MIN_VALUE || full - now < 0 ? now : full) + interval;
+            var wait = next - now - tolerance - interval;
+            if (wait > 0)
+                return wait;
+            if (bucket.compareAndSet(full, next))
+                return 0;
+        }
+    }
+
+    long size() {
+        return buckets.estimatedSize();
+    }
+}
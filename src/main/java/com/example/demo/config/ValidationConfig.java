@@ -0,0 +1,23 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.validation.ProductRequestValidator;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Validates {@code @Valid} request bodies with the {@link ProductRequestValidator}.
+ */
+@Configuration
+public class ValidationConfig implements WebFluxConfigurer {
+    private final ProductRequestValidator productRequestValidator;
+
+    public ValidationConfig(ProductRequestValidator productRequestValidator) {
+        this.productRequestValidator = productRequestValidator;
+    }
+
+    @Override
+    public Validator getValidator() {
+        return productRequestValidator;
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.demo.data.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.util.List;
+
 @Table
 public class Product {
     @Id
@@ -12,6 +17,9 @@ public class Product {
     @Column
     private String sku;
 
+    @Column
+    private Long skuNumber;
+
     @Column
     private String name;
 
@@ -27,10 +35,17 @@ public class Product {
     @Column
     private String principalImage;
 
+    @Version
     @Column
-    private String otherImages;
+    private Long version;
 
-    public Product(String sku, String name, String brand, String size, Double price, String principalImage, String otherImages) {
+    /**
+     * Stored as ordered rows of {@code product_image}, loaded separately from the product row.
+     */
+    @Transient
+    private List<String> otherImages;
+
+    public Product(String sku, String name, String brand, String size, Double price, String principalImage, List<String> otherImages) {
         this.sku = sku;
         this.name = name;
         this.brand = brand;
@@ -59,6 +74,15 @@ public class Product {
         this.sku = sku;
     }
 
+    @JsonIgnore
+    public Long getSkuNumber() {
+        return skuNumber;
+    }
+
+    public void setSkuNumber(Long skuNumber) {
+        this.skuNumber = skuNumber;
+    }
+
     public String getName() {
         return name;
     }
@@ -99,11 +123,23 @@ public class Product {
         this.principalImage = principalImage;
     }
 
-    public String getOtherImages() {
+    /**
+     * Incremented by every update; exposed as the entity tag of the product rather than in its body.
+     */
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public List<String> getOtherImages() {
         return otherImages;
     }
 
-    public void setOtherImages(String otherImages) {
+    public void setOtherImages(List<String> otherImages) {
         this.otherImages = otherImages;
     }
 }
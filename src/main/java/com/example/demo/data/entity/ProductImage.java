@@ -0,0 +1,37 @@
+package com.example.demo.data.entity;
+
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * One of the other images of a product, kept in the order they were given.
+ */
+@Table("product_image")
+public class ProductImage {
+    @Column
+    private final Long productId;
+
+    @Column
+    private final int position;
+
+    @Column
+    private final String url;
+
+    public ProductImage(Long productId, int position, String url) {
+        this.productId = productId;
+        this.position = position;
+        this.url = url;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
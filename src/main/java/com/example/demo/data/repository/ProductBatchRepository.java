@@ -0,0 +1,20 @@
+package com.example.demo.data.repository;
+
+import com.example.demo.data.entity.Product;
+import com.example.demo.data.entity.ProductImage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductBatchRepository {
+    Flux<Product> insertAll(List<Product> products);
+    Flux<String> findExistingSkus(Collection<Long> skuNumbers, Collection<String> skus);
+    Mono<Void> insertImages(List<Product> products);
+    Flux<ProductImage> findImages(Collection<Long> productIds);
+    Mono<Void> deleteImages(long productId);
+    Mono<Boolean> update(Product product, long expectedVersion);
+    Mono<Boolean> patch(Product changes, Long id, Long expectedVersion);
+    Flux<Product> findFiltered(ProductFilter filter);
+}
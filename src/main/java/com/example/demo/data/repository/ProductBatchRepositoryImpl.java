@@ -0,0 +1,250 @@
+package com.example.demo.data.repository;
+
+import com.example.demo.data.entity.Product;
+import com.example.demo.data.entity.ProductImage;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Batched statements that the derived queries of {@link ProductRepository} cannot express.
+ */
+public class ProductBatchRepositoryImpl implements ProductBatchRepository {
+    private static final String INSERT = "insert into product (sku, sku_number, name, brand, size, price, principal_image) values ";
+    private static final String[] COLUMNS = {"sku", "sku_number", "name", "brand", "size", "price", "principal_image"};
+    private static final String INSERT_IMAGE = "insert into product_image (product_id, position, url) values ";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcEntityTemplate template;
+
+    public ProductBatchRepositoryImpl(DatabaseClient databaseClient, R2dbcEntityTemplate template) {
+        this.databaseClient = databaseClient;
+        this.template = template;
+    }
+
+    /**
+     * Inserts every product with a single multi-row statement, assigning the generated ids in order.
+     */
+    @Override
+    public Flux<Product> insertAll(List<Product> products) {
+        if (products.isEmpty())
+            return Flux.empty();
+
+        var sql = new StringBuilder(INSERT.length() + products.size() * 64).append(INSERT);
+        for (int i = 0; i < products.size(); i++) {
+            sql.append(i == 0 ? "(" : ", (");
+            for (int c = 0; c < COLUMNS.length; c++)
+                sql.append(c == 0 ? ":" : ", :").append(COLUMNS[c]).append(i);
+            sql.append(')');
+        }
+
+        var spec = databaseClient.sql(sql.toString()).filter(s -> s.returnGeneratedValues("id"));
+        for (int i = 0; i < products.size(); i++) {
+            var product = products.get(i);
+            spec = bind(spec, "sku" + i, product.getSku(), String.class);
+            spec = bind(spec, "sku_number" + i, product.getSkuNumber(), Long.class);
+            spec = bind(spec, "name" + i, product.getName(), String.class);
+            spec = bind(spec, "brand" + i, product.getBrand(), String.class);
+            spec = bind(spec, "size" + i, product.getSize(), String.class);
+            spec = bind(spec, "price" + i, product.getPrice(), Double.class);
+            spec = bind(spec, "principal_image" + i, product.getPrincipalImage(), String.class);
+        }
+
+        return spec.map(row -> row.get("id", Long.class))
+                .all()
+                .index()
+                .map(el -> {
+                    var product = products.get(el.getT1().intValue());
+                    product.setId(el.getT2());
+                    product.setVersion(0L);
+                    return product;
+                });
+    }
+
+    @Override
+    public Flux<String> findExistingSkus(Collection<Long> skuNumbers, Collection<String> skus) {
+        if (skus.isEmpty())
+            return Flux.empty();
+
+        return databaseClient.sql("select sku from product where sku_number in (:skuNumbers) and sku in (:skus)")
+                .bind("skuNumbers", skuNumbers)
+                .bind("skus", skus)
+                .map(row -> row.get("sku", String.class))
+                .all();
+    }
+
+    /**
+     * Inserts the other images of every saved product with a single multi-row statement.
+     */
+    @Override
+    public Mono<Void> insertImages(List<Product> products) {
+        var sql = new StringBuilder(INSERT_IMAGE);
+        var rows = 0;
+        for (Product product : products) {
+            if (product.getOtherImages() == null)
+                continue;
+            for (int position = 0; position < product.getOtherImages().size(); position++, rows++)
+                sql.append(rows == 0 ? "(" : ", (").append(":p").append(rows).append(", ").append(position).append(", :u").append(rows).append(')');
+        }
+        if (rows == 0)
+            return Mono.empty();
+
+        var spec = databaseClient.sql(sql.toString());
+        var row = 0;
+        for (Product product : products) {
+            if (product.getOtherImages() == null)
+                continue;
+            for (String url : product.getOtherImages()) {
+                spec = spec.bind("p" + row, product.getId()).bind("u" + row, url);
+                row++;
+            }
+        }
+        return spec.then();
+    }
+
+    /**
+     * Loads the other images of many products with one {@code IN} query, ordered by product and position.
+     */
+    @Override
+    public Flux<ProductImage> findImages(Collection<Long> productIds) {
+        if (productIds.isEmpty())
+            return Flux.empty();
+
+        return databaseClient.sql("select product_id, position, url from product_image where product_id in (:productIds) order by product_id, position")
+                .bind("productIds", productIds)
+                .map(row -> new ProductImage(row.get("product_id", Long.class), row.get("position", Integer.class), row.get("url", String.class)))
+                .all();
+    }
+
+    @Override
+    public Mono<Void> deleteImages(long productId) {
+        return databaseClient.sql("delete from product_image where product_id = :productId")
+                .bind("productId", productId)
+                .then();
+    }
+
+    /**
+     * Overwrites the product with one conditional {@code UPDATE}, without reading it first. Nothing is written
+     * unless the row still has the given sku and version; on success the version of {@code product} is advanced.
+     *
+     * @return whether the row was updated
+     */
+    @Override
+    public Mono<Boolean> update(Product product, long expectedVersion) {
+        return template.update(Product.class)
+                .matching(query(where("id").is(product.getId())
+                        .and("skuNumber").is(product.getSkuNumber())
+                        .and("sku").is(product.getSku())
+                        .and("version").is(expectedVersion)))
+                .apply(Update.update("name", product.getName())
+                        .set("brand", product.getBrand())
+                        .set("size", product.getSize())
+                        .set("price", product.getPrice())
+                        .set("principalImage", product.getPrincipalImage())
+                        .set("version", expectedVersion + 1))
+                .map(rows -> {
+                    if (rows == 0)
+                        return false;
+                    product.setVersion(expectedVersion + 1);
+                    return true;
+                });
+    }
+
+    /**
+     * Sets only the non-null columns of {@code changes} with one {@code UPDATE}, matching the row by sku and,
+     * when {@code id} is given, by id and {@code expectedVersion} too. The version is advanced in the same statement.
+     *
+     * @return whether a row was updated
+     */
+    @Override
+    public Mono<Boolean> patch(Product changes, Long id, Long expectedVersion) {
+        var sql = new StringBuilder("update product set ");
+        appendSet(sql, "name", changes.getName());
+        appendSet(sql, "brand", changes.getBrand());
+        appendSet(sql, "size", changes.getSize());
+        appendSet(sql, "price", changes.getPrice());
+        appendSet(sql, "principal_image", changes.getPrincipalImage());
+        sql.append("version = version + 1 where sku_number = :sku_number and sku = :sku");
+        if (id != null)
+            sql.append(" and id = :id and version = :version");
+
+        var spec = databaseClient.sql(sql.toString())
+                .bind("sku_number", changes.getSkuNumber())
+                .bind("sku", changes.getSku());
+        spec = bindIfPresent(spec, "name", changes.getName());
+        spec = bindIfPresent(spec, "brand", changes.getBrand());
+        spec = bindIfPresent(spec, "size", changes.getSize());
+        spec = bindIfPresent(spec, "price", changes.getPrice());
+        spec = bindIfPresent(spec, "principal_image", changes.getPrincipalImage());
+        spec = bindIfPresent(spec, "id", id);
+        spec = bindIfPresent(spec, "version", expectedVersion);
+
+        return spec.fetch().rowsUpdated().map(rows -> rows > 0);
+    }
+
+    /**
+     * Streams one page of the products matching {@code filter}, in its sort order.
+     */
+    @Override
+    public Flux<Product> findFiltered(ProductFilter filter) {
+        return filterStatement("", filter)
+                .map((row, metadata) -> template.getConverter().read(Product.class, row, metadata))
+                .all();
+    }
+
+    /**
+     * The query of {@link #findFiltered}, with {@code prefix} in front of it so its plan can be checked with
+     * {@code explain}. Every condition is an equality or a range on {@code brand}, {@code size} and {@code price},
+     * so one of the composite indexes of {@code schema.sql} applies. The price keyset is written as a range plus a
+     * tie-break rather than a plain {@code or}, which would keep the index from bounding the scan.
+     */
+    DatabaseClient.GenericExecuteSpec filterStatement(String prefix, ProductFilter filter) {
+        var byPrice = filter.getSort() == ProductFilter.Sort.PRICE;
+        var keyset = !byPrice || filter.getAfterPrice() != null;
+        var conditions = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        if (filter.getBrand() != null)
+            conditions.add("brand = :brand");
+        if (filter.getSize() != null)
+            conditions.add("size = :size");
+        if (filter.getMinPrice() != null)
+            conditions.add("price >= :min_price");
+        if (filter.getMaxPrice() != null)
+            conditions.add("price <= :max_price");
+        if (byPrice && keyset)
+            conditions.add("price >= :after_price and (price > :after_price or id > :after_id)");
+        else if (keyset)
+            conditions.add("id > :after_id");
+
+        var sql = prefix + "select * from product" + conditions + (byPrice ? " order by price, id" : " order by id") + " limit :limit";
+        var spec = databaseClient.sql(sql).bind("limit", filter.getLimit());
+        if (keyset)
+            spec = spec.bind("after_id", filter.getAfterId());
+        spec = bindIfPresent(spec, "brand", filter.getBrand());
+        spec = bindIfPresent(spec, "size", filter.getSize());
+        spec = bindIfPresent(spec, "min_price", filter.getMinPrice());
+        spec = bindIfPresent(spec, "max_price", filter.getMaxPrice());
+        return byPrice ? bindIfPresent(spec, "after_price", filter.getAfterPrice()) : spec;
+    }
+
+    private static void appendSet(StringBuilder sql, String column, Object value) {
+        if (value != null)
+            sql.append(column).append(" = :").append(column).append(", ");
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindIfPresent(DatabaseClient.GenericExecuteSpec spec, String name, Object value) {
+        return value == null ? spec : spec.bind(name, value);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
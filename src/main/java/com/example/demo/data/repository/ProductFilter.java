@@ -0,0 +1,24 @@
+package com.example.demo.data.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A catalog query: every non-null condition must hold. Pages are keyset based, resuming after the last
+ * product of the previous page: after {@code afterId} when sorted by id, after {@code (afterPrice, afterId)}
+ * when sorted by price.
+ */
+@Getter
+@Builder
+public class ProductFilter {
+    public enum Sort {ID, PRICE}
+
+    private final String brand;
+    private final String size;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Sort sort;
+    private final long afterId;
+    private final Double afterPrice;
+    private final int limit;
+}
@@ -1,10 +1,21 @@
 package com.example.demo.data.repository;
 
 import com.example.demo.data.entity.Product;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface ProductRepository extends ReactiveCrudRepository<Product, Long> {
-    Mono<Product> findBySku(String sku);
-    Mono<Boolean> deleteBySku(String sku);
+import java.util.Collection;
+
+public interface ProductRepository extends ReactiveCrudRepository<Product, Long>, ProductBatchRepository {
+    Mono<Product> findBySkuNumberAndSku(long skuNumber, String sku);
+    Flux<Product> findBySkuNumberInAndSkuIn(Collection<Long> skuNumbers, Collection<String> skus);
+    Mono<Boolean> deleteBySkuNumberAndSku(long skuNumber, String sku);
+
+    @Query("select * from product where id > :after order by id limit :limit")
+    Flux<Product> findPage(long after, int limit);
+
+    @Query("select * from product order by id")
+    Flux<Product> streamAll();
 }
@@ -0,0 +1,95 @@
+package com.example.demo.domain;
+
+import com.example.demo.data.entity.Product;
+
+/**
+ * Strong entity tags of the form {@code "<id>-<version>"}. The id keeps a product that was deleted and created
+ * again from matching the tags of its previous incarnation.
+ */
+public final class ProductETag {
+    /**
+     * {@code If-Match: *}, or no header at all: any current version is acceptable.
+     */
+    public static final long ANY = -2L;
+    public static final long NO_MATCH = -1L;
+
+    private final long id;
+    private final long version;
+
+    private ProductETag(long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public static String of(Product product) {
+        return "\"" + product.getId() + "-" + product.getVersion() + "\"";
+    }
+
+    public static String of(long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * @return the single strong tag, or {@code null} when the value is anything else
+     */
+    public static ProductETag parse(String tag) {
+        tag = tag.trim();
+        if (tag.length() < 5 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"')
+            return null;
+
+        var dash = tag.indexOf('-');
+        if (dash < 0)
+            return null;
+
+        var id = parseDigits(tag, 1, dash);
+        var version = parseDigits(tag, dash + 1, tag.length() - 1);
+        return id == NO_MATCH || version == NO_MATCH ? null : new ProductETag(id, version);
+    }
+
+    /**
+     * @return the version named by the first tag of an {@code If-Match} header that belongs to product {@code id},
+     * {@link #ANY} for {@code *}, or {@link #NO_MATCH} when no tag does. Weak tags never match.
+     */
+    public static long matchVersion(String ifMatch, long id) {
+        if (ifMatch.trim().equals("*"))
+            return ANY;
+
+        var tag = match(ifMatch, id);
+        return tag == null ? NO_MATCH : tag.version;
+    }
+
+    /**
+     * @return the first strong tag of an {@code If-Match} header that belongs to product {@code id}, or
+     * {@code null} when none does
+     */
+    public static ProductETag match(String ifMatch, long id) {
+        for (String tag : ifMatch.split(",")) {
+            var parsed = parse(tag);
+            if (parsed != null && parsed.id == id)
+                return parsed;
+        }
+        return null;
+    }
+
+    private static long parseDigits(String value, int from, int to) {
+        if (from >= to || to - from > 18)
+            return NO_MATCH;
+
+        long number = 0;
+        for (int i = from; i < to; i++) {
+            var c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return NO_MATCH;
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
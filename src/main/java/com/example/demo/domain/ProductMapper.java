@@ -7,7 +7,6 @@ import org.springframework.validation.annotation.Validated;
 
 import java.util.List;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Component
 public class ProductMapper implements Function<ProductRequest, Product> {
@@ -21,14 +20,15 @@ public class ProductMapper implements Function<ProductRequest, Product> {
                 productRequest.getSize(),
                 productRequest.getPrice(),
                 productRequest.getPrincipalImage(),
-                obtainUrl(productRequest.getOtherImages()));
+                obtainUrls(productRequest.getOtherImages()));
 
+        product.setSkuNumber(Sku.parseNumber(productRequest.getSku()));
         if (productRequest.getId() != null && productRequest.getId() > 0L)
             product.setId(productRequest.getId());
         return product;
     }
 
-    private String obtainUrl(List<String> otherImages) {
-        return otherImages == null || otherImages.isEmpty() ? null : String.join(";", otherImages);
+    private List<String> obtainUrls(List<String> otherImages) {
+        return otherImages == null || otherImages.isEmpty() ? null : List.copyOf(otherImages);
     }
 }
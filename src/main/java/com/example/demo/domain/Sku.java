@@ -0,0 +1,99 @@
+package com.example.demo.domain;
+
+/**
+ * A product sku such as {@code FAL-1000000}: one or more of {@code F}, {@code A} or {@code L}, one or more
+ * dashes and a run of digits. The parser is hand written so checking a sku needs no regex and no allocation.
+ */
+public final class Sku {
+    public static final long INVALID = -1L;
+    public static final long MIN_NUMBER = 1000000L;
+    public static final long MAX_NUMBER = 99999999L;
+
+    private static final long SATURATION = Long.MAX_VALUE / 10;
+
+    private final String value;
+    private final long number;
+
+    private Sku(String value, long number) {
+        this.value = value;
+        this.number = number;
+    }
+
+    /**
+     * @return the parsed sku, or {@code null} when the value is not a well formed sku
+     */
+    public static Sku parse(String value) {
+        var number = parseNumber(value);
+        return number == INVALID ? null : new Sku(value, number);
+    }
+
+    public static boolean isValid(CharSequence value) {
+        return parseNumber(value) != INVALID;
+    }
+
+    public static boolean inRange(long number) {
+        return number >= MIN_NUMBER && number <= MAX_NUMBER;
+    }
+
+    /**
+     * @return the numeric part of the sku, saturated at {@link Long#MAX_VALUE}, or {@link #INVALID}
+     * when the value is not a well formed sku
+     */
+    public static long parseNumber(CharSequence value) {
+        if (value == null)
+            return INVALID;
+
+        int length = value.length();
+        int i = 0;
+        while (i < length && isPrefix(value.charAt(i)))
+            i++;
+        if (i == 0)
+            return INVALID;
+
+        int dashes = i;
+        while (i < length && value.charAt(i) == '-')
+            i++;
+        if (i == dashes || i == length)
+            return INVALID;
+
+        long number = 0;
+        for (; i < length; i++) {
+            var c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return INVALID;
+            number = number >= SATURATION ? Long.MAX_VALUE : number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static boolean isPrefix(char c) {
+        return c == 'F' || c == 'A' || c == 'L';
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public boolean inRange() {
+        return inRange(number);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Sku && value.equals(((Sku) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
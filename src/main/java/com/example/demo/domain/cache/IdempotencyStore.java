@@ -0,0 +1,88 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.domain.exception.DomainException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Outcomes of requests sent with an {@code Idempotency-Key}, scoped to the client that sent it, kept for {@code product.idempotency.ttl} and at most
+ * {@code product.idempotency.max-size} of them. The first request with a key runs; later ones from the same client
+ * with the same key and the same request, including those arriving while it still runs, receive its response or client error
+ * without running again. The same key with a different request fails with
+ * {@link DomainException#IDEMPOTENCY_KEY_REUSED}.
+ * <p>
+ * The first request runs detached from its caller, so a client that times out and retries finds the outcome of
+ * its first attempt instead of a half cancelled write. Only client errors are kept: after any other error the key
+ * is forgotten and a retry runs again.
+ * Published as {@code product.idempotency{outcome=executed|replayed|conflict}}.
+ */
+@Component
+public class IdempotencyStore {
+    private final boolean enabled;
+    private final Cache<String, Entry> entries;
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter conflicts;
+
+    public IdempotencyStore(@Value("${product.idempotency.enabled:true}") boolean enabled,
+                            @Value("${product.idempotency.max-size:100000}") long maxSize,
+                            @Value("${product.idempotency.ttl:1h}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.executed = Counter.builder("product.idempotency").tag("outcome", "executed").register(meterRegistry);
+        this.replayed = Counter.builder("product.idempotency").tag("outcome", "replayed").register(meterRegistry);
+        this.conflicts = Counter.builder("product.idempotency").tag("outcome", "conflict").register(meterRegistry);
+    }
+
+    /**
+     * @param operation   what the key is scoped to, such as the method and path
+     * @param client      who sent the key, so keys chosen by different clients never meet
+     * @param request     compared with {@link Object#equals} to the request that first used the key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String operation, String client, String key, Object request, Supplier<Mono<T>> action) {
+        if (!enabled || key == null)
+            return action.get();
+
+        var id = client + "\n" + operation + "\n" + key;
+        var started = new Entry(request, Mono.defer(action).map(Object.class::cast).cache());
+        var entry = entries.asMap().putIfAbsent(id, started);
+        if (entry == null) {
+            executed.increment();
+            started.result.subscribe(null, e -> {
+                if (!(e instanceof DomainException) || ((DomainException) e).getStatus().is5xxServerError())
+                    entries.asMap().remove(id, started);
+            });
+            return (Mono<T>) started.result;
+        }
+
+        if (!entry.request.equals(request)) {
+            conflicts.increment();
+            return Mono.error(DomainException.IDEMPOTENCY_KEY_REUSED);
+        }
+        replayed.increment();
+        return (Mono<T>) entry.result;
+    }
+
+    private static final class Entry {
+        private final Object request;
+        private final Mono<Object> result;
+
+        private Entry(Object request, Mono<Object> result) {
+            this.request = request;
+            this.result = result;
+        }
+    }
+}
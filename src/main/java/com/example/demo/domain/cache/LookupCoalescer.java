@@ -0,0 +1,57 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Single flight for product lookups: while a query for a sku is running, every other lookup of that sku
+ * subscribes to the same {@link Mono} and receives its product, emptiness or error, instead of querying again.
+ * Published as {@code product.lookups{outcome=query|coalesced}} and the {@code product.lookups.in.flight} gauge.
+ */
+@Component
+public class LookupCoalescer {
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Counter queries;
+    private final Counter coalesced;
+
+    public LookupCoalescer(MeterRegistry meterRegistry) {
+        this.queries = Counter.builder("product.lookups").tag("outcome", "query").register(meterRegistry);
+        this.coalesced = Counter.builder("product.lookups").tag("outcome", "coalesced").register(meterRegistry);
+        Gauge.builder("product.lookups.in.flight", inFlight, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    public Mono<Product> load(String sku, Function<String, Mono<Product>> loader) {
+        var flight = inFlight.get(sku);
+        if (flight == null) {
+            var started = new Flight(sku, loader);
+            flight = inFlight.putIfAbsent(sku, started);
+            if (flight == null) {
+                queries.increment();
+                return started.result;
+            }
+        }
+        coalesced.increment();
+        return flight.result;
+    }
+
+    /**
+     * The query runs once, on the first subscription, and its outcome is replayed to every subscriber.
+     * It leaves the map as soon as it terminates, so later lookups see fresh data.
+     */
+    private final class Flight {
+        private final Mono<Product> result;
+
+        private Flight(String sku, Function<String, Mono<Product>> loader) {
+            this.result = Mono.defer(() -> loader.apply(sku))
+                    .doFinally(__ -> inFlight.remove(sku, this))
+                    .cache();
+        }
+    }
+}
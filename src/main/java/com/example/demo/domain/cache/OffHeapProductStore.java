@@ -0,0 +1,353 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Products encoded back to back in one direct buffer and found through an open-addressing table, in a second
+ * direct buffer, from the numeric part of the sku to the newest record with that number. Each slot is one long,
+ * the number in the high half and the record offset in the low half, so a slot is read and written whole.
+ * Nothing is kept on the heap per product.
+ * <p>
+ * A record is never changed once written: a put appends a record and repoints the slot, so one writer and any
+ * number of lock-free readers can share the store. Every record links to the record the slot pointed to before,
+ * which is how the few skus sharing a number, such as {@code FAL-1000000} and {@code F-1000000}, are all found;
+ * a newer record of a sku shadows the older ones further down the chain. Slot keys are never cleared, so the
+ * table never has to be reorganised under a reader, and the space of replaced records is only reclaimed by
+ * {@link #resize}.
+ * <p>
+ * Record layout: next record, record length, id ({@code 0} once the sku is removed), version and price bits,
+ * then sku, name, brand, size and principal image as length-prefixed UTF-8, {@code -1} for {@code null}, then
+ * the number of other images, {@code -1} for {@code null}, and their URLs.
+ */
+final class OffHeapProductStore {
+    static final int MIN_SLOTS = 1024;
+    static final int MIN_DATA_BYTES = 1 << 20;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int SLOT_BYTES = 8;
+    private static final int MAX_DATA_BYTES = Integer.MAX_VALUE - 8;
+    private static final int NONE = 0;
+    private static final int FIRST_RECORD = 8;
+
+    private static final int NEXT = 0;
+    private static final int LENGTH = 4;
+    private static final int ID = 8;
+    private static final int VERSION = 16;
+    private static final int PRICE = 24;
+    private static final int HEADER = 32;
+    private static final int STRINGS = 5;
+    private static final long NULL_PRICE = 0x7ff8_0000_0000_0badL;
+
+    private final ByteBuffer index;
+    private final ByteBuffer data;
+    private final int mask;
+    private int keys;
+    private int size;
+    private int position = FIRST_RECORD;
+    private long liveBytes;
+
+    OffHeapProductStore(int slots, int dataBytes) {
+        if (Integer.bitCount(slots) != 1)
+            throw new IllegalArgumentException("slots must be a power of two, was " + slots);
+
+        this.index = ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        this.data = ByteBuffer.allocateDirect(dataBytes);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * @return the product, or {@code null} when the sku is not stored
+     */
+    Product get(long number, String sku) {
+        for (int slot = home(number); ; slot = (slot + 1) & mask) {
+            var entry = (long) LONGS.getAcquire(index, slot * SLOT_BYTES);
+            if (entry == 0L)
+                return null;
+            if (entry >>> 32 == number) {
+                var record = find((int) entry, sku);
+                return record == NONE || data.getLong(record + ID) == 0L ? null : read(record, number);
+            }
+        }
+    }
+
+    /**
+     * Stores the product unless the stored one is newer: a higher id, which is a later incarnation of the sku,
+     * or the same id with a higher version.
+     *
+     * @return {@code false}, changing nothing, when there is no room for it
+     */
+    boolean put(long number, Product product) {
+        var slot = slot(number);
+        var entry = (long) LONGS.get(index, slot * SLOT_BYTES);
+        var added = entry == 0L;
+        if (added && keys + 1 > (mask + 1) / 2)
+            return false;
+
+        var head = (int) entry;
+        var current = find(head, product.getSku());
+        if (current != NONE && !isNewer(product, current))
+            return true;
+
+        var strings = encode(product);
+        var length = HEADER;
+        for (byte[] string : strings)
+            length += 4 + (string == null ? 0 : string.length);
+        length += 4;
+        if (position > data.capacity() - length)
+            return false;
+
+        write(current != NONE && current == head ? data.getInt(head + NEXT) : head, length, product, strings);
+        point(slot, number, position);
+        if (added)
+            keys++;
+        if (current != NONE && data.getLong(current + ID) != 0L)
+            liveBytes -= data.getInt(current + LENGTH);
+        else
+            size++;
+        liveBytes += length;
+        position += length;
+        return true;
+    }
+
+    /**
+     * Unlinks the record when it is the head of its chain and no older record of the sku is left behind it,
+     * otherwise writes a record with id {@code 0} that hides them all.
+     *
+     * @return {@code false}, changing nothing, when there is no room for the record that hides the sku
+     */
+    boolean remove(long number, String sku) {
+        var slot = slot(number);
+        var head = (int) (long) LONGS.get(index, slot * SLOT_BYTES);
+        var current = find(head, sku);
+        if (current == NONE || data.getLong(current + ID) == 0L)
+            return true;
+
+        var next = current == head ? data.getInt(head + NEXT) : head;
+        if (current == head && find(next, sku) == NONE) {
+            point(slot, number, next);
+        } else {
+            var removed = new Product(sku, null, null, null, null, null, null);
+            var strings = encode(removed);
+            var length = HEADER + 4 + strings[0].length + 4 * STRINGS;
+            if (position > data.capacity() - length)
+                return false;
+
+            write(next, length, removed, strings);
+            point(slot, number, position);
+            position += length;
+        }
+        liveBytes -= data.getInt(current + LENGTH);
+        size--;
+        return true;
+    }
+
+    /**
+     * Copies the current products into a new store with a table for twice the products. The data buffer is
+     * doubled when {@code grow} is set or when more than three quarters of it is live, so resizing for the table
+     * alone does not grow it and compacting it frees at least a quarter.
+     */
+    OffHeapProductStore resize(boolean grow) {
+        var dataBytes = data.capacity();
+        if (grow || liveBytes > dataBytes / 4 * 3) {
+            if (dataBytes == MAX_DATA_BYTES)
+                throw new IllegalStateException("product snapshot exceeds " + MAX_DATA_BYTES + " bytes");
+            dataBytes = (int) Math.min(2L * dataBytes, MAX_DATA_BYTES);
+        }
+
+        var copy = new OffHeapProductStore(slotsFor(size + 1), dataBytes);
+        var chain = new ArrayList<Product>();
+        var seen = new HashSet<String>();
+        for (int slot = 0; slot <= mask; slot++) {
+            var entry = (long) LONGS.get(index, slot * SLOT_BYTES);
+            if (entry == 0L)
+                continue;
+
+            var number = entry >>> 32;
+            chain.clear();
+            seen.clear();
+            for (int record = (int) entry; record != NONE; record = data.getInt(record + NEXT)) {
+                var product = read(record, number);
+                if (seen.add(product.getSku()) && product.getId() != 0L)
+                    chain.add(product);
+            }
+            for (Product product : chain)
+                if (!copy.put(number, product))
+                    return resize(true);
+        }
+        return copy;
+    }
+
+    /**
+     * More than twice the products, so that many can be added before the table is half full.
+     */
+    static int slotsFor(int products) {
+        return Math.max(MIN_SLOTS, Integer.highestOneBit(products * 2) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long dataBytes() {
+        return data.capacity();
+    }
+
+    long indexBytes() {
+        return index.capacity();
+    }
+
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    private int home(long number) {
+        return (int) ((number * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * @return the slot holding {@code number}, or the empty slot where it goes
+     */
+    private int slot(long number) {
+        for (int slot = home(number); ; slot = (slot + 1) & mask) {
+            var entry = (long) LONGS.get(index, slot * SLOT_BYTES);
+            if (entry == 0L || entry >>> 32 == number)
+                return slot;
+        }
+    }
+
+    /**
+     * Published with release semantics, so a reader that sees the slot also sees the record it leads to.
+     */
+    private void point(int slot, long number, int record) {
+        LONGS.setRelease(index, slot * SLOT_BYTES, number << 32 | record);
+    }
+
+    private int find(int record, String sku) {
+        for (; record != NONE; record = data.getInt(record + NEXT))
+            if (skuEquals(record + HEADER, sku))
+                return record;
+        return NONE;
+    }
+
+    /**
+     * Skus are ASCII by their grammar, so their UTF-8 bytes are compared with the chars without decoding.
+     */
+    private boolean skuEquals(int at, String sku) {
+        if (data.getInt(at) != sku.length())
+            return false;
+        for (int i = 0; i < sku.length(); i++)
+            if (data.get(at + 4 + i) != (byte) sku.charAt(i))
+                return false;
+        return true;
+    }
+
+    private boolean isNewer(Product product, int record) {
+        var storedId = data.getLong(record + ID);
+        var id = product.getId() == null ? 0L : product.getId();
+        if (storedId == 0L || id != storedId)
+            return id >= storedId;
+        return version(product) >= data.getLong(record + VERSION);
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() == null ? 0L : product.getVersion();
+    }
+
+    private static byte[][] encode(Product product) {
+        var images = product.getOtherImages();
+        var strings = new byte[STRINGS + (images == null ? 0 : images.size())][];
+        strings[0] = utf8(product.getSku());
+        strings[1] = utf8(product.getName());
+        strings[2] = utf8(product.getBrand());
+        strings[3] = utf8(product.getSize());
+        strings[4] = utf8(product.getPrincipalImage());
+        for (int i = STRINGS; i < strings.length; i++)
+            strings[i] = utf8(images.get(i - STRINGS));
+        return strings;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void write(int next, int length, Product product, byte[][] strings) {
+        var at = position;
+        data.putInt(at + NEXT, next);
+        data.putInt(at + LENGTH, length);
+        data.putLong(at + ID, product.getId() == null ? 0L : product.getId());
+        data.putLong(at + VERSION, version(product));
+        data.putLong(at + PRICE, product.getPrice() == null ? NULL_PRICE : Double.doubleToRawLongBits(product.getPrice()));
+        at += HEADER;
+        for (int i = 0; i < STRINGS; i++)
+            at = putString(at, strings[i]);
+        data.putInt(at, product.getOtherImages() == null ? -1 : strings.length - STRINGS);
+        at += 4;
+        for (int i = STRINGS; i < strings.length; i++)
+            at = putString(at, strings[i]);
+    }
+
+    private int putString(int at, byte[] value) {
+        if (value == null) {
+            data.putInt(at, -1);
+            return at + 4;
+        }
+        data.putInt(at, value.length);
+        for (int i = 0; i < value.length; i++)
+            data.put(at + 4 + i, value[i]);
+        return at + 4 + value.length;
+    }
+
+    private Product read(int record, long number) {
+        var product = new Product();
+        product.setId(data.getLong(record + ID));
+        product.setVersion(data.getLong(record + VERSION));
+        var price = data.getLong(record + PRICE);
+        product.setPrice(price == NULL_PRICE ? null : Double.longBitsToDouble(price));
+        product.setSkuNumber(number);
+
+        var at = record + HEADER;
+        product.setSku(getString(at));
+        at = skipString(at);
+        product.setName(getString(at));
+        at = skipString(at);
+        product.setBrand(getString(at));
+        at = skipString(at);
+        product.setSize(getString(at));
+        at = skipString(at);
+        product.setPrincipalImage(getString(at));
+        at = skipString(at);
+
+        var images = data.getInt(at);
+        at += 4;
+        if (images >= 0) {
+            var urls = new ArrayList<String>(images);
+            for (int i = 0; i < images; i++, at = skipString(at))
+                urls.add(getString(at));
+            product.setOtherImages(urls);
+        }
+        return product;
+    }
+
+    private String getString(int at) {
+        var length = data.getInt(at);
+        if (length < 0)
+            return null;
+
+        var bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = data.get(at + 4 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int at) {
+        return at + 4 + Math.max(data.getInt(at), 0);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of products keyed by sku.
+ * Hit, miss and eviction counters are published as {@code cache.*} meters tagged {@code cache=product}.
+ * <p>
+ * A product read from the database may be older than a write that commits while the read is in flight, so
+ * every {@link #put} and {@link #evict} of a write bumps an invalidation counter of the sku, and a loaded product
+ * is only cached by {@link #putLoaded} when the counter has not moved since its read started. Counters are
+ * striped, so a write to another sku of the same stripe at worst skips caching a load. A cached product is
+ * never replaced by an older version of itself.
+ */
+@Component
+public class ProductCache implements MeterBinder {
+    private static final String CACHE_NAME = "product";
+    private static final int STRIPES = 4096;
+
+    private final boolean enabled;
+    private final Cache<String, Product> cache;
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    public ProductCache(@Value("${product.cache.enabled:true}") boolean enabled,
+                        @Value("${product.cache.max-size:10000}") long maxSize,
+                        @Value("${product.cache.ttl:5m}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Mono<Product> get(String sku, Function<String, Mono<Product>> loader) {
+        if (!enabled)
+            return loader.apply(sku);
+
+        var cached = cache.getIfPresent(sku);
+        if (cached != null)
+            return Mono.just(cached);
+
+        var generation = generation(sku);
+        return loader.apply(sku).doOnNext(el -> putLoaded(el, generation));
+    }
+
+    /**
+     * @return the invalidation counter of the sku, to read before loading it for {@link #putLoaded}
+     */
+    public long generation(String sku) {
+        return invalidations.get(stripe(sku));
+    }
+
+    /**
+     * Caches a product read from the database unless its sku was written since {@code generation} was read.
+     */
+    public void putLoaded(Product product, long generation) {
+        var sku = product.getSku();
+        if (!enabled || sku == null)
+            return;
+
+        cache.asMap().compute(sku, (key, cached) -> invalidations.get(stripe(key)) != generation ? cached : newer(cached, product));
+    }
+
+    public Product getIfPresent(String sku) {
+        return enabled ? cache.getIfPresent(sku) : null;
+    }
+
+    /**
+     * Caches the product of a committed write.
+     */
+    public void put(Product product) {
+        var sku = product.getSku();
+        if (!enabled || sku == null)
+            return;
+
+        invalidations.incrementAndGet(stripe(sku));
+        cache.asMap().compute(sku, (key, cached) -> newer(cached, product));
+    }
+
+    public void evict(String sku) {
+        invalidations.incrementAndGet(stripe(sku));
+        cache.invalidate(sku);
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < STRIPES; i++)
+            invalidations.incrementAndGet(i);
+        cache.invalidateAll();
+    }
+
+    private static Product newer(Product cached, Product product) {
+        if (cached != null && Objects.equals(cached.getId(), product.getId()) && version(cached) > version(product))
+            return cached;
+        return product;
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() == null ? 0L : product.getVersion();
+    }
+
+    private static int stripe(String sku) {
+        var hash = sku.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
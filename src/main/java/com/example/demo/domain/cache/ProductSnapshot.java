@@ -0,0 +1,152 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+import com.example.demo.domain.Sku;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Read-optimized copy of the whole catalog that answers sku lookups without the database, enabled by
+ * {@code product.snapshot.enabled}. Products are kept off heap in an {@link OffHeapProductStore}, so millions of
+ * skus add no objects for the collector to trace, and a lookup only allocates the product it returns.
+ * <p>
+ * The snapshot is built from a stream of the catalog on startup and rebuilt every
+ * {@code product.snapshot.rebuild-interval}. In between, every committed write through {@code ProductService} is
+ * applied to it, and the writes that arrive while a rebuild streams the catalog are applied to the new copy
+ * before it replaces the old one. Until the first build completes lookups go to the database.
+ * <p>
+ * Published as {@code product.snapshot.products}, {@code product.snapshot.bytes{area=data|index}} for the
+ * allocated direct memory, {@code product.snapshot.live.bytes} for the records still in use and the
+ * {@code product.snapshot.rebuild} timer.
+ */
+@Component
+public class ProductSnapshot {
+    private final boolean enabled;
+    private final Timer rebuilds;
+    private volatile OffHeapProductStore store;
+    private List<Change> pending;
+
+    public ProductSnapshot(@Value("${product.snapshot.enabled:false}") boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.rebuilds = Timer.builder("product.snapshot.rebuild").register(meterRegistry);
+        Gauge.builder("product.snapshot.products", this, el -> el.measure(OffHeapProductStore::size)).register(meterRegistry);
+        Gauge.builder("product.snapshot.bytes", this, el -> el.measure(OffHeapProductStore::dataBytes)).tag("area", "data").register(meterRegistry);
+        Gauge.builder("product.snapshot.bytes", this, el -> el.measure(OffHeapProductStore::indexBytes)).tag("area", "index").register(meterRegistry);
+        Gauge.builder("product.snapshot.live.bytes", this, el -> el.measure(OffHeapProductStore::liveBytes)).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoaded() {
+        return store != null;
+    }
+
+    /**
+     * @return the product, or {@code null} when it does not exist or the snapshot is not loaded yet
+     */
+    public Product find(String sku, long number) {
+        var current = store;
+        return current == null ? null : current.get(number, sku);
+    }
+
+    public void put(Product product) {
+        apply(new Change(product.getSku(), product));
+    }
+
+    public void remove(String sku) {
+        apply(new Change(sku, null));
+    }
+
+    /**
+     * Builds a new copy from {@code catalog} and swaps it in. Does nothing while another rebuild is running;
+     * when the stream fails the current copy stays in place.
+     */
+    public Mono<Void> rebuild(Flux<Product> catalog) {
+        if (!enabled)
+            return Mono.empty();
+
+        return Mono.defer(() -> {
+            synchronized (this) {
+                if (pending != null)
+                    return Mono.empty();
+                pending = new ArrayList<>();
+            }
+
+            var started = System.nanoTime();
+            var next = new OffHeapProductStore[]{new OffHeapProductStore(OffHeapProductStore.MIN_SLOTS, OffHeapProductStore.MIN_DATA_BYTES)};
+            return catalog
+                    .doOnNext(product -> next[0] = apply(next[0], new Change(product.getSku(), product)))
+                    .then(Mono.fromRunnable(() -> {
+                        swap(next[0]);
+                        rebuilds.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }))
+                    .doOnError(e -> discardPending())
+                    .doOnCancel(this::discardPending)
+                    .then();
+        });
+    }
+
+    private synchronized void apply(Change change) {
+        if (!enabled)
+            return;
+
+        if (pending != null)
+            pending.add(change);
+        if (store != null)
+            store = apply(store, change);
+    }
+
+    private synchronized void swap(OffHeapProductStore next) {
+        for (Change change : pending)
+            next = apply(next, change);
+        pending = null;
+        store = next;
+    }
+
+    private synchronized void discardPending() {
+        pending = null;
+    }
+
+    /**
+     * Applies the change, moving to a compacted or larger copy of the store when it does not fit.
+     */
+    private static OffHeapProductStore apply(OffHeapProductStore store, Change change) {
+        var number = Sku.parseNumber(change.sku);
+        if (!Sku.inRange(number))
+            return store;
+
+        for (int attempt = 0; !(change.product == null ? store.remove(number, change.sku) : store.put(number, change.product)); attempt++)
+            store = store.resize(attempt > 0);
+        return store;
+    }
+
+    private double measure(ToLongFunction<OffHeapProductStore> metric) {
+        var current = store;
+        return current == null ? 0 : metric.applyAsLong(current);
+    }
+
+    /**
+     * A product to store, or a sku to remove when {@code product} is {@code null}.
+     */
+    private static final class Change {
+        private final String sku;
+        private final Product product;
+
+        private Change(String sku, Product product) {
+            this.sku = sku;
+            this.product = product;
+        }
+    }
+}
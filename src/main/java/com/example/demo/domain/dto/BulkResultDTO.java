@@ -0,0 +1,34 @@
+package com.example.demo.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResultDTO {
+    private final String sku;
+    private final int status;
+    private final Long id;
+    private final String message;
+
+    public BulkResultDTO(String sku, int status, Long id, String message) {
+        this.sku = sku;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.domain.dto;
+
+import com.example.demo.data.entity.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One change of the catalog. The product is included when the change was a create or a full update;
+ * after a partial update or a delete it is absent and only the sku is known.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChangeDTO {
+    public enum Type {CREATED, UPDATED, DELETED}
+
+    private final long sequence;
+    private final Type type;
+    private final String sku;
+    private final Product product;
+
+    public ProductChangeDTO(long sequence, Type type, String sku, Product product) {
+        this.sequence = sequence;
+        this.type = type;
+        this.sku = sku;
+        this.product = product;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+}
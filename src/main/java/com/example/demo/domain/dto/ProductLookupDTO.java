@@ -0,0 +1,23 @@
+package com.example.demo.domain.dto;
+
+import com.example.demo.data.entity.Product;
+
+import java.util.List;
+
+public class ProductLookupDTO {
+    private final List<Product> products;
+    private final List<String> missing;
+
+    public ProductLookupDTO(List<Product> products, List<String> missing) {
+        this.products = products;
+        this.missing = missing;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+}
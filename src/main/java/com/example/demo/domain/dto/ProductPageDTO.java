@@ -0,0 +1,26 @@
+package com.example.demo.domain.dto;
+
+import com.example.demo.data.entity.Product;
+
+import java.util.List;
+
+public class ProductPageDTO {
+    private final List<Product> products;
+    private final Long next;
+
+    public ProductPageDTO(List<Product> products, Long next) {
+        this.products = products;
+        this.next = next;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * @return the {@code after} cursor of the following page, or {@code null} on the last page
+     */
+    public Long getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.domain.event;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Defers a side effect of a write until the current transaction commits, so a rolled back write leaves no
+ * trace outside the database, or runs it right away when there is no transaction.
+ */
+public final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    public static Mono<Void> run(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(manager -> {
+                    if (!manager.isSynchronizationActive())
+                        return Mono.<Void>fromRunnable(action);
+
+                    manager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(action);
+                        }
+                    });
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(action));
+    }
+}
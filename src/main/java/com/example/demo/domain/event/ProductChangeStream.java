@@ -0,0 +1,106 @@
+package com.example.demo.domain.event;
+
+import com.example.demo.data.entity.Product;
+import com.example.demo.domain.dto.ProductChangeDTO;
+import com.example.demo.domain.exception.DomainException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+
+/**
+ * Fan-out of catalog changes to any number of subscribers through one multicast sink. Every change gets the next
+ * sequence number and is kept in a ring of the last {@code product.changes.history-size} changes, so a client
+ * can resume after the last sequence it received as long as it is still in the ring.
+ * <p>
+ * Each subscriber has its own buffer of {@code product.changes.buffer-size} changes. When a slow subscriber fills
+ * it, {@code product.changes.slow-consumer} decides: {@code drop-oldest} discards its oldest buffered change,
+ * {@code disconnect} ends its stream so it resumes from its last sequence. Either way the publisher and the other
+ * subscribers never wait for it. Overflows are counted as {@code product.changes.overflow{policy}}.
+ */
+@Component
+public class ProductChangeStream {
+    private final Sinks.Many<ProductChangeDTO> sink = Sinks.many().multicast().directBestEffort();
+    private final ProductChangeDTO[] history;
+    private final int bufferSize;
+    private final boolean disconnectSlowConsumers;
+    private final Counter overflows;
+    private long sequence;
+
+    public ProductChangeStream(@Value("${product.changes.history-size:10000}") int historySize,
+                               @Value("${product.changes.buffer-size:256}") int bufferSize,
+                               @Value("${product.changes.slow-consumer:drop-oldest}") String slowConsumer,
+                               MeterRegistry meterRegistry) {
+        if (!slowConsumer.equals("drop-oldest") && !slowConsumer.equals("disconnect"))
+            throw new IllegalArgumentException("product.changes.slow-consumer must be drop-oldest or disconnect, was " + slowConsumer);
+
+        this.history = new ProductChangeDTO[historySize];
+        this.bufferSize = bufferSize;
+        this.disconnectSlowConsumers = slowConsumer.equals("disconnect");
+        this.overflows = Counter.builder("product.changes.overflow").tag("policy", slowConsumer).register(meterRegistry);
+        Gauge.builder("product.changes.subscribers", sink, Sinks.Many::currentSubscriberCount).register(meterRegistry);
+    }
+
+    public void publish(ProductChangeDTO.Type type, String sku, Product product) {
+        synchronized (history) {
+            var change = new ProductChangeDTO(++sequence, type, sku, product);
+            history[(int) (change.getSequence() % history.length)] = change;
+            sink.tryEmitNext(change);
+        }
+    }
+
+    /**
+     * Publishes once the current transaction commits, so a rolled back write is never announced, or right away
+     * when there is no transaction.
+     */
+    public Mono<Void> publishAfterCommit(ProductChangeDTO.Type type, String sku, Product product) {
+        return AfterCommit.run(() -> publish(type, sku, product));
+    }
+
+    /**
+     * @param after the last sequence already received, or {@code null} for new changes only
+     * @return the retained changes after {@code after}, then new changes as they are published; fails with
+     * {@link DomainException#OFFSET_EXPIRED} when changes after {@code after} already left the ring, or when
+     * {@code after} was never published because the sequence restarted with the application
+     */
+    public Flux<ProductChangeDTO> subscribe(Long after) {
+        Flux<ProductChangeDTO> changes = Flux.create(emitter -> {
+            synchronized (history) {
+                if (after != null) {
+                    var replay = retainedAfter(after);
+                    if (replay == null) {
+                        emitter.error(DomainException.OFFSET_EXPIRED);
+                        return;
+                    }
+                    replay.forEach(emitter::next);
+                }
+                emitter.onDispose(sink.asFlux().subscribe(emitter::next, emitter::error, emitter::complete));
+            }
+        });
+
+        if (!disconnectSlowConsumers)
+            return changes.onBackpressureBuffer(bufferSize, dropped -> overflows.increment(), BufferOverflowStrategy.DROP_OLDEST);
+
+        return changes.onBackpressureBuffer(bufferSize, dropped -> overflows.increment(), BufferOverflowStrategy.ERROR)
+                .onErrorResume(Exceptions::isOverflow, e -> Mono.empty());
+    }
+
+    private ArrayList<ProductChangeDTO> retainedAfter(long after) {
+        var oldest = Math.max(1, sequence - history.length + 1);
+        if (after < oldest - 1 || after > sequence)
+            return null;
+
+        var replay = new ArrayList<ProductChangeDTO>((int) Math.max(0, sequence - after));
+        for (long i = Math.max(after + 1, oldest); i <= sequence; i++)
+            replay.add(history[(int) (i % history.length)]);
+        return replay;
+    }
+}
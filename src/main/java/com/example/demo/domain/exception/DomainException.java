@@ -0,0 +1,56 @@
+package com.example.demo.domain.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+/**
+ * A rejected request. Unlike {@code HttpClientErrorException} it captures no stack trace and allows no
+ * suppressed exceptions, so the fixed errors below are immutable and shared instead of allocated per request.
+ * {@link #getMessage()} keeps the {@code "<status> <reason>"} format clients already receive.
+ */
+public class DomainException extends RuntimeException {
+    public static final DomainException ID_MUST_BE_NULL = new DomainException(HttpStatus.BAD_REQUEST, "id must be null");
+    public static final DomainException ID_MUST_BE_POSITIVE = new DomainException(HttpStatus.BAD_REQUEST, "id must be positive");
+    public static final DomainException SKU_FORMAT = new DomainException(HttpStatus.BAD_REQUEST, "sku: Invalid sku format");
+    public static final DomainException SKU_RANGE = new DomainException(HttpStatus.BAD_REQUEST, "sku range is bad");
+    public static final DomainException SKU_TAKEN = new DomainException(HttpStatus.UNPROCESSABLE_ENTITY, "sku already taken");
+    public static final DomainException SKU_IMMUTABLE = new DomainException(HttpStatus.UNPROCESSABLE_ENTITY, "sku cannot be changed");
+    public static final DomainException ELEMENT_GONE = new DomainException(HttpStatus.GONE, "element does not exists");
+    public static final DomainException ALREADY_DELETED = new DomainException(HttpStatus.NOT_FOUND, "already deleted");
+    public static final DomainException VERSION_MISMATCH = new DomainException(HttpStatus.PRECONDITION_FAILED, "version does not match");
+    public static final DomainException NOT_FOUND = new DomainException(HttpStatus.NOT_FOUND, "element not found");
+    public static final DomainException NOTHING_TO_UPDATE = new DomainException(HttpStatus.BAD_REQUEST, "nothing to update");
+    public static final DomainException OFFSET_EXPIRED = new DomainException(HttpStatus.GONE, "changes after this sequence are no longer retained");
+    public static final DomainException RATE_LIMITED = new DomainException(HttpStatus.TOO_MANY_REQUESTS, "rate limit exceeded");
+    public static final DomainException OVERLOADED = new DomainException(HttpStatus.SERVICE_UNAVAILABLE, "server overloaded, retry later");
+    public static final DomainException IDEMPOTENCY_KEY_REUSED = new DomainException(HttpStatus.UNPROCESSABLE_ENTITY, "idempotency key already used for another request");
+    public static final DomainException INVALID_SORT = new DomainException(HttpStatus.BAD_REQUEST, "sort must be id or price");
+
+    private static final List<DomainException> FIXED = List.of(ID_MUST_BE_NULL, ID_MUST_BE_POSITIVE, SKU_FORMAT, SKU_RANGE, SKU_TAKEN, SKU_IMMUTABLE, ELEMENT_GONE, ALREADY_DELETED,
+            VERSION_MISMATCH, NOT_FOUND, NOTHING_TO_UPDATE, INVALID_SORT, OFFSET_EXPIRED, RATE_LIMITED, OVERLOADED, IDEMPOTENCY_KEY_REUSED);
+
+    private final HttpStatus status;
+    private final String reason;
+
+    public DomainException(HttpStatus status, String reason) {
+        super(status.value() + " " + reason, null, false, false);
+        this.status = status;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the shared instances whose responses can be rendered once and reused
+     */
+    public static List<DomainException> fixed() {
+        return FIXED;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.domain.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.util.List;
+
+/**
+ * The fields of a product to change; every {@code null} field is left as it is.
+ * An {@code otherImages} list, even an empty one, replaces all the images.
+ */
+@Builder
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPatchRequest {
+    /**
+     * The rule of {@link NotBlank} for a field that may be left out: {@code null} passes, a blank value does not.
+     */
+    private static final String NOT_BLANK = "(?s).*\\S.*";
+
+    @Size(message = "name: Min 3 characters, max 50", min = 3, max = 50)
+    @Pattern(regexp = NOT_BLANK, message = "name: Must not be blank")
+    private String name;
+
+    @Size(message = "brand: Min 3 characters, max 50", min = 3, max = 50)
+    @Pattern(regexp = NOT_BLANK, message = "brand: Must not be blank")
+    private String brand;
+
+    @Pattern(regexp = NOT_BLANK, message = "size: Must not be blank")
+    private String size;
+
+    @DecimalMin(value = "1.00", message = "price: invalid min value")
+    @DecimalMax(value = "99999999.00", message = "price: reaches max value")
+    private Double price;
+
+    @Pattern(regexp = ProductRequest.URL_PATTERN, message = "principalImage: element doesn't match")
+    private String principalImage;
+
+    private List<@NotNull(message = "otherImages: element must not be null")
+                 @Pattern(regexp = ProductRequest.URL_PATTERN, message = "otherImages: element doesn't match") String> otherImages;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return name == null && brand == null && size == null && price == null && principalImage == null && otherImages == null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.domain.request;
 
+import com.example.demo.domain.validation.ValidSku;
 import lombok.*;
 
 import javax.validation.constraints.*;
@@ -8,14 +9,16 @@ import java.util.List;
 @Builder
 @Setter
 @Getter
+@EqualsAndHashCode
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductRequest {
+    public static final String URL_PATTERN = "^(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]";
 
     private Long id;
 
     @NotBlank(message = "sku: Must not be null")
-    @Pattern(regexp = "[FAL]+[-]+\\d+$", message = "sku: Invalid sku format")
+    @ValidSku
     private String sku;
 
     @NotBlank(message = "name: Must not be blank")
@@ -34,8 +37,9 @@ public class ProductRequest {
     @DecimalMax(value = "99999999.00", message = "price: reaches max value")
     private Double price;
 
-    @Pattern(regexp = "^(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]", message = "principalImage: element doesn't match")
+    @Pattern(regexp = URL_PATTERN, message = "principalImage: element doesn't match")
     private String principalImage;
 
-    private List<@Pattern(regexp = "^(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]", message = "otherImages: element doesn't match") String> otherImages;
+    private List<@NotNull(message = "otherImages: element must not be null")
+                 @Pattern(regexp = URL_PATTERN, message = "otherImages: element doesn't match") String> otherImages;
 }
\ No newline at end of file
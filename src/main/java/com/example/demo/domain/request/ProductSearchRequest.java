@@ -0,0 +1,32 @@
+package com.example.demo.domain.request;
+
+import lombok.*;
+
+/**
+ * Query parameters of {@code GET /product/search}. The next page starts after the last product received:
+ * pass its id as {@code after} and, when sorting by price, its price as {@code afterPrice}.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchRequest {
+
+    private String brand;
+
+    private String size;
+
+    private Double minPrice;
+
+    private Double maxPrice;
+
+    private String sort = "id";
+
+    private long after;
+
+    private Double afterPrice;
+
+    private int limit = 50;
+
+    private boolean images = true;
+}
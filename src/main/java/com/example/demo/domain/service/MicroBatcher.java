@@ -0,0 +1,86 @@
+package com.example.demo.domain.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects items submitted concurrently into batches of up to {@code maxSize}, or whatever arrived within
+ * {@code window} of the first one, and hands each batch to a handler that completes every request on its own.
+ * Batch sizes and the time requests waited for their batch are published as {@code <name>.size} and
+ * {@code <name>.queue.delay} histograms.
+ */
+final class MicroBatcher<T, R> {
+    private static final Sinks.EmitFailureHandler RETRY_CONCURRENT_EMIT = (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED;
+
+    private final Sinks.Many<Request<T, R>> queue = Sinks.many().unicast().onBackpressureBuffer();
+
+    MicroBatcher(String name, int maxSize, Duration window, int concurrency,
+                 Function<List<Request<T, R>>, Mono<Void>> handler, MeterRegistry meterRegistry) {
+        var batchSize = DistributionSummary.builder(name + ".size")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        var queueDelay = Timer.builder(name + ".queue.delay")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        queue.asFlux()
+                .bufferTimeout(maxSize, window)
+                .onBackpressureBuffer()
+                .flatMap(batch -> {
+                    var now = System.nanoTime();
+                    batchSize.record(batch.size());
+                    batch.forEach(request -> queueDelay.record(now - request.enqueued, TimeUnit.NANOSECONDS));
+                    return Mono.defer(() -> handler.apply(batch))
+                            .doOnError(e -> batch.forEach(request -> request.fail(e)))
+                            .onErrorResume(e -> Mono.empty())
+                            .doFinally(__ -> batch.forEach(Request::completeEmpty));
+                }, concurrency)
+                .subscribe();
+    }
+
+    /**
+     * The item joins the next batch when the returned {@link Mono} is subscribed. Cancelling it afterwards
+     * does not take the item out of its batch.
+     */
+    Mono<R> submit(T item) {
+        return Mono.defer(() -> {
+            var request = new Request<T, R>(item);
+            queue.emitNext(request, RETRY_CONCURRENT_EMIT);
+            return request.result.asMono();
+        });
+    }
+
+    static final class Request<T, R> {
+        private final T item;
+        private final long enqueued = System.nanoTime();
+        private final Sinks.One<R> result = Sinks.one();
+
+        private Request(T item) {
+            this.item = item;
+        }
+
+        T getItem() {
+            return item;
+        }
+
+        void complete(R value) {
+            result.tryEmitValue(value);
+        }
+
+        void fail(Throwable e) {
+            result.tryEmitError(e);
+        }
+
+        private void completeEmpty() {
+            result.tryEmitEmpty();
+        }
+    }
+}
@@ -1,91 +1,610 @@
 package com.example.demo.domain.service;
 
 import com.example.demo.data.entity.Product;
+import com.example.demo.data.entity.ProductImage;
+import com.example.demo.data.repository.ProductFilter;
 import com.example.demo.data.repository.ProductRepository;
+import com.example.demo.domain.ProductETag;
 import com.example.demo.domain.ProductMapper;
+import com.example.demo.domain.Sku;
+import com.example.demo.domain.cache.LookupCoalescer;
+import com.example.demo.domain.cache.ProductCache;
+import com.example.demo.domain.cache.ProductSnapshot;
+import com.example.demo.domain.dto.BulkResultDTO;
 import com.example.demo.domain.dto.MessageDTO;
+import com.example.demo.domain.dto.ProductChangeDTO;
+import com.example.demo.domain.dto.ProductLookupDTO;
+import com.example.demo.domain.dto.ProductPageDTO;
+import com.example.demo.domain.event.AfterCommit;
+import com.example.demo.domain.event.ProductChangeStream;
+import com.example.demo.domain.exception.DomainException;
+import com.example.demo.domain.request.ProductPatchRequest;
 import com.example.demo.domain.request.ProductRequest;
+import com.example.demo.domain.request.ProductSearchRequest;
+import com.example.demo.domain.validation.ProductRequestValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.R2dbcException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.constraints.AssertTrue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 @SuppressWarnings("rawtypes")
 public class ProductService {
-    private static final String REGEX_SKU = "[FAL]+[-]+\\d+$";
-    private static final String REGEX_MESSAGE_ERROR = "sku: Invalid sku format";
+    private static final String SQL_STATE_UNIQUE_VIOLATION = "23505";
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ProductCache productCache;
+    private final LookupCoalescer lookupCoalescer;
+    private final ProductChangeStream changeStream;
+    private final ProductSnapshot snapshot;
+    private final ProductRequestValidator validator;
+    private final TransactionalOperator transactionalOperator;
+    private final int bulkBatchSize;
+    private final int multiGetMaxSkus;
+    private final int listMaxLimit;
+    private final int exportPrefetch;
+    private final DomainException tooManySkus;
+    private final DomainException limitOutOfBounds;
+    private final MicroBatcher<Product, Product> createBatcher;
 
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper, ProductCache productCache,
+                          LookupCoalescer lookupCoalescer, ProductChangeStream changeStream, ProductSnapshot snapshot,
+                          ProductRequestValidator validator, TransactionalOperator transactionalOperator,
+                          @Value("${product.bulk.batch-size:500}") int bulkBatchSize,
+                          @Value("${product.multi-get.max-skus:500}") int multiGetMaxSkus,
+                          @Value("${product.list.max-limit:500}") int listMaxLimit,
+                          @Value("${product.export.prefetch:256}") int exportPrefetch,
+                          @Value("${product.create-batch.enabled:false}") boolean createBatchEnabled,
+                          @Value("${product.create-batch.max-size:100}") int createBatchMaxSize,
+                          @Value("${product.create-batch.window:5ms}") Duration createBatchWindow,
+                          @Value("${product.create-batch.concurrency:2}") int createBatchConcurrency,
+                          MeterRegistry meterRegistry) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.productCache = productCache;
+        this.lookupCoalescer = lookupCoalescer;
+        this.changeStream = changeStream;
+        this.snapshot = snapshot;
+        this.validator = validator;
+        this.transactionalOperator = transactionalOperator;
+        this.bulkBatchSize = bulkBatchSize;
+        this.multiGetMaxSkus = multiGetMaxSkus;
+        this.listMaxLimit = listMaxLimit;
+        this.tooManySkus = new DomainException(HttpStatus.BAD_REQUEST, "too many skus, max " + multiGetMaxSkus);
+        this.limitOutOfBounds = new DomainException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + listMaxLimit);
+        this.exportPrefetch = exportPrefetch;
+        this.createBatcher = createBatchEnabled
+                ? new MicroBatcher<>("product.create.batch", createBatchMaxSize, createBatchWindow, createBatchConcurrency, this::createBatch, meterRegistry)
+                : null;
     }
 
-    @Transactional
+    /**
+     * Writes the product and its images in one transaction. With the micro-batcher the create is not
+     * transactional while it waits, as it would otherwise hold a pooled connection that the batch insert itself
+     * needs; like a bulk create, the batch writes products and images by separate statements.
+     */
     @AssertTrue
     public Mono<Object> saveProduct(Mono<ProductRequest> productRequest) {
         return productRequest.flatMap(el -> {
-            if (el.getId() != null)
-                return Mono.error(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "id must be null"));
-
-            var s = Integer.parseInt(el.getSku().split("-")[1]);
-            if (s < 1000000 || s > 99999999)
-                return Mono.error(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "sku range is bad"));
+            var rejection = checkNewProduct(el);
+            if (rejection != null)
+                return Mono.error(rejection);
 
-            Mono<Product> bySku = productRepository.findBySku(el.getSku());
-            return bySku
-                    .flatMap(__ -> Mono.error(new HttpClientErrorException(HttpStatus.UNPROCESSABLE_ENTITY, "sku already taken")))
-                    .switchIfEmpty(Mono.defer(() -> productRepository.save(productMapper.apply(el))));
+            var product = productMapper.apply(el);
+            if (createBatcher != null)
+                return createBatcher.submit(product).doOnNext(productCache::put);
+            return saveOne(product);
         });
     }
 
-    public Mono<ResponseEntity> findProductBySku(String sku) {
-        if (!sku.matches(REGEX_SKU))
-            return Mono.error(new HttpClientErrorException(HttpStatus.BAD_REQUEST, REGEX_MESSAGE_ERROR));
+    private Mono<Product> saveOne(Product product) {
+        return transactionalOperator.transactional(productRepository.save(product)
+                .onErrorMap(ProductService::isDuplicateKey, e -> DomainException.SKU_TAKEN)
+                .flatMap(saved -> saveImages(List.of(saved))
+                        .then(AfterCommit.run(() -> {
+                            publishCreated(saved);
+                            productCache.put(saved);
+                        }))
+                        .thenReturn(saved)));
+    }
+
+    /**
+     * Runs the creates collected by the micro-batcher as one multi-row insert. As in {@link #saveBatch}, a sku
+     * repeated within the batch or already stored fails only its own request, and a batch that loses a race
+     * with another create is retried one product at a time.
+     */
+    private Mono<Void> createBatch(List<MicroBatcher.Request<Product, Product>> batch) {
+        var accepted = new LinkedHashMap<String, MicroBatcher.Request<Product, Product>>();
+        for (var request : batch)
+            if (accepted.putIfAbsent(request.getItem().getSku(), request) != null)
+                request.fail(DomainException.SKU_TAKEN);
+
+        var skuNumbers = accepted.values().stream().map(el -> el.getItem().getSkuNumber()).collect(Collectors.toList());
+        return productRepository.findExistingSkus(skuNumbers, accepted.keySet())
+                .doOnNext(sku -> accepted.remove(sku).fail(DomainException.SKU_TAKEN))
+                .thenMany(Flux.defer(() -> insertAll(accepted.values().stream().map(MicroBatcher.Request::getItem).collect(Collectors.toList()))))
+                .doOnNext(saved -> accepted.get(saved.getSku()).complete(saved))
+                .onErrorResume(ProductService::isDuplicateKey, e -> Flux.fromIterable(accepted.values())
+                        .concatMap(request -> {
+                            var product = request.getItem();
+                            product.setId(null);
+                            product.setVersion(null);
+                            return saveOne(product)
+                                    .doOnNext(request::complete)
+                                    .doOnError(request::fail)
+                                    .onErrorResume(__ -> Mono.empty());
+                        }))
+                .then();
+    }
+
+    private Flux<Product> insertAll(List<Product> products) {
+        return productRepository.insertAll(products)
+                .collectList()
+                .flatMapMany(saved -> saveImages(saved).thenMany(Flux.fromIterable(saved)))
+                .doOnNext(this::publishCreated);
+    }
+
+    private void publishCreated(Product product) {
+        snapshot.put(product);
+        changeStream.publish(ProductChangeDTO.Type.CREATED, product.getSku(), product);
+    }
+
+    /**
+     * Creates products in batches of {@code product.bulk.batch-size}, one multi-row insert per batch,
+     * emitting one result per request in the order they were received.
+     */
+    public Flux<BulkResultDTO> saveProducts(Flux<ProductRequest> productRequests) {
+        return productRequests
+                .buffer(bulkBatchSize)
+                .concatMap(this::saveBatch);
+    }
+
+    private Flux<BulkResultDTO> saveBatch(List<ProductRequest> batch) {
+        var results = new BulkResultDTO[batch.size()];
+        var accepted = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < batch.size(); i++) {
+            var el = batch.get(i);
+            var message = validator.check(el);
+            if (message != null) {
+                results[i] = new BulkResultDTO(el.getSku(), HttpStatus.UNPROCESSABLE_ENTITY.value(), null, message);
+                continue;
+            }
+
+            var rejection = checkNewProduct(el);
+            if (rejection != null)
+                results[i] = rejected(el.getSku(), rejection);
+            else if (accepted.putIfAbsent(el.getSku(), i) != null)
+                results[i] = rejected(el.getSku(), DomainException.SKU_TAKEN);
+        }
+
+        if (accepted.isEmpty())
+            return Flux.fromArray(results);
+
+        var skuNumbers = accepted.keySet().stream().map(Sku::parseNumber).collect(Collectors.toList());
+        return productRepository.findExistingSkus(skuNumbers, accepted.keySet())
+                .doOnNext(sku -> results[accepted.remove(sku)] = rejected(sku, DomainException.SKU_TAKEN))
+                .thenMany(Flux.defer(() -> insertAll(accepted.values().stream()
+                        .map(i -> productMapper.apply(batch.get(i)))
+                        .collect(Collectors.toList()))))
+                .doOnNext(saved -> results[accepted.get(saved.getSku())] = new BulkResultDTO(saved.getSku(), HttpStatus.CREATED.value(), saved.getId(), null))
+                .onErrorResume(ProductService::isDuplicateKey, e -> saveOneByOne(batch, accepted, results))
+                .onErrorResume(e -> {
+                    log.error(e.getMessage());
+                    accepted.forEach((sku, i) -> {
+                        if (results[i] == null)
+                            results[i] = new BulkResultDTO(sku, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, "");
+                    });
+                    return Mono.empty();
+                })
+                .thenMany(Flux.defer(() -> Flux.fromArray(results)));
+    }
 
-        var s = Integer.parseInt(sku.split("-")[1]);
-        if (s < 1000000 || s > 99999999)
-            return Mono.error(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "sku range is bad"));
+    /**
+     * Fallback for a batch that lost a race with a concurrent create: the multi-row insert is rolled back
+     * as a whole, so every accepted item is retried on its own to report the duplicates individually.
+     */
+    private Flux<Product> saveOneByOne(List<ProductRequest> batch, Map<String, Integer> accepted, BulkResultDTO[] results) {
+        return Flux.fromIterable(accepted.entrySet())
+                .concatMap(entry -> productRepository.save(productMapper.apply(batch.get(entry.getValue())))
+                        .flatMap(saved -> saveImages(List.of(saved)).thenReturn(saved))
+                        .doOnNext(this::publishCreated)
+                        .onErrorResume(ProductService::isDuplicateKey, e -> {
+                            results[entry.getValue()] = rejected(entry.getKey(), DomainException.SKU_TAKEN);
+                            return Mono.empty();
+                        }))
+                .doOnNext(saved -> results[accepted.get(saved.getSku())] = new BulkResultDTO(saved.getSku(), HttpStatus.CREATED.value(), saved.getId(), null));
+    }
+
+    private Mono<Void> saveImages(List<Product> saved) {
+        for (Product product : saved)
+            if (product.getOtherImages() != null && !product.getOtherImages().isEmpty())
+                return productRepository.insertImages(saved);
+        return Mono.empty();
+    }
+
+    /**
+     * Fills the other images of every product with a single {@code IN} query instead of one query per product.
+     */
+    private Mono<List<Product>> withImages(List<Product> products) {
+        var ids = new ArrayList<Long>(products.size());
+        for (Product product : products)
+            if (product.getId() != null)
+                ids.add(product.getId());
+        if (ids.isEmpty())
+            return Mono.just(products);
+
+        return productRepository.findImages(ids)
+                .collect(Collectors.groupingBy(ProductImage::getProductId, Collectors.mapping(ProductImage::getUrl, Collectors.toList())))
+                .map(images -> {
+                    for (Product product : products)
+                        product.setOtherImages(images.get(product.getId()));
+                    return products;
+                });
+    }
 
-        Mono<Product> bySku = productRepository.findBySku(sku);
+    private Mono<Product> withImages(Product product) {
+        return withImages(List.of(product)).thenReturn(product);
+    }
+
+    private static BulkResultDTO rejected(String sku, DomainException rejection) {
+        return new BulkResultDTO(sku, rejection.getStatus().value(), null, rejection.getReason());
+    }
+
+    private DomainException checkNewProduct(ProductRequest el) {
+        if (el.getId() != null)
+            return DomainException.ID_MUST_BE_NULL;
+
+        return checkSku(Sku.parse(el.getSku()));
+    }
+
+    public Mono<ResponseEntity> findProductBySku(String sku) {
+        var parsed = Sku.parse(sku);
+        var rejection = checkSku(parsed);
+        if (rejection != null)
+            return Mono.error(rejection);
+
+        Mono<Product> bySku = snapshot.isLoaded() ? Mono.justOrEmpty(snapshot.find(sku, parsed.getNumber()))
+                : cachedOrLoad(sku, parsed.getNumber());
         return bySku
-                .map(el -> ResponseEntity.status(HttpStatus.OK).body(el))
+                .map(el -> ResponseEntity.status(HttpStatus.OK).eTag(ProductETag.of(el)).body(el))
                 .cast(ResponseEntity.class)
                 .defaultIfEmpty(ResponseEntity.status(HttpStatus.NO_CONTENT).build());
     }
 
+    /**
+     * The cache is read through inside the coalesced query, so its invalidation counter is read when the query
+     * starts: a lookup that joins a query started before a write cannot cache what that query read.
+     */
+    private Mono<Product> cachedOrLoad(String sku, long skuNumber) {
+        var cached = productCache.getIfPresent(sku);
+        if (cached != null)
+            return Mono.just(cached);
+
+        return lookupCoalescer.load(sku, __ -> productCache.get(sku,
+                ___ -> productRepository.findBySkuNumberAndSku(skuNumber, sku).flatMap(this::withImages)));
+    }
+
+    /**
+     * Resolves every distinct sku, serving cached products first and the rest with a single {@code IN} query.
+     */
+    public Flux<Product> findProductsBySkus(Collection<String> skus) {
+        if (skus.size() > multiGetMaxSkus)
+            return Flux.error(tooManySkus);
+
+        var distinct = new LinkedHashSet<>(skus);
+        var hits = new ArrayList<Product>(distinct.size());
+        var misses = new ArrayList<String>(distinct.size());
+        var generations = new HashMap<String, Long>();
+        var missNumbers = new ArrayList<Long>(distinct.size());
+        for (String sku : distinct) {
+            var parsed = Sku.parse(sku);
+            var rejection = checkSku(parsed);
+            if (rejection != null)
+                return Flux.error(rejection);
+
+            var cached = productCache.getIfPresent(sku);
+            if (cached != null) {
+                hits.add(cached);
+            } else {
+                misses.add(sku);
+                missNumbers.add(parsed.getNumber());
+                generations.put(sku, productCache.generation(sku));
+            }
+        }
+
+        if (misses.isEmpty())
+            return Flux.fromIterable(hits);
+
+        return Flux.fromIterable(hits)
+                .concatWith(productRepository.findBySkuNumberInAndSkuIn(missNumbers, misses)
+                        .collectList()
+                        .flatMap(this::withImages)
+                        .flatMapIterable(found -> found)
+                        .doOnNext(el -> productCache.putLoaded(el, generations.get(el.getSku()))));
+    }
+
+    public Mono<ProductLookupDTO> lookupProductsBySkus(List<String> skus) {
+        return findProductsBySkus(skus)
+                .collectList()
+                .map(found -> {
+                    var missing = new LinkedHashSet<>(skus);
+                    found.forEach(el -> missing.remove(el.getSku()));
+                    return new ProductLookupDTO(found, new ArrayList<>(missing));
+                });
+    }
+
+    /**
+     * Keyset pagination over the primary key: a page is every product with an id greater than {@code after}.
+     * The images of the whole page are loaded with one query, or not at all when {@code images} is false.
+     */
+    public Mono<ProductPageDTO> findProductsPage(long after, int limit, boolean images) {
+        if (limit < 1 || limit > listMaxLimit)
+            return Mono.error(limitOutOfBounds);
+
+        var products = productRepository.findPage(Math.max(after, 0L), limit).collectList();
+        return (images ? products.flatMap(this::withImages) : products)
+                .map(page -> new ProductPageDTO(page, page.size() < limit ? null : page.get(page.size() - 1).getId()));
+    }
+
+    /**
+     * Streams the whole catalog in id order, requesting rows from the driver {@code product.export.prefetch} at a time.
+     * When {@code images} is true they are loaded for each chunk of that size with one query.
+     */
+    public Flux<Product> exportProducts(boolean images) {
+        var products = productRepository.streamAll().limitRate(exportPrefetch);
+        return images ? withImages(products) : products;
+    }
+
+    /**
+     * Rebuilds the snapshot from the whole catalog, streamed with its images like the export.
+     */
+    public Mono<Void> rebuildSnapshot() {
+        return snapshot.rebuild(exportProducts(true));
+    }
+
+    /**
+     * Streams one keyset page of the products matching the search, as the driver returns them. Images are
+     * loaded like in the export, with one query per chunk of {@code product.export.prefetch} products.
+     */
+    public Flux<Product> searchProducts(ProductSearchRequest search) {
+        if (search.getLimit() < 1 || search.getLimit() > listMaxLimit)
+            return Flux.error(limitOutOfBounds);
+
+        ProductFilter.Sort sort;
+        if ("id".equals(search.getSort()))
+            sort = ProductFilter.Sort.ID;
+        else if ("price".equals(search.getSort()))
+            sort = ProductFilter.Sort.PRICE;
+        else
+            return Flux.error(DomainException.INVALID_SORT);
+
+        var products = productRepository.findFiltered(ProductFilter.builder()
+                .brand(search.getBrand())
+                .size(search.getSize())
+                .minPrice(search.getMinPrice())
+                .maxPrice(search.getMaxPrice())
+                .sort(sort)
+                .afterId(Math.max(search.getAfter(), 0L))
+                .afterPrice(search.getAfterPrice())
+                .limit(search.getLimit())
+                .build());
+        return search.isImages() ? withImages(products) : products;
+    }
+
+    /**
+     * Catalog changes after sequence {@code after}, or from now on when it is {@code null}, as they are published.
+     */
+    public Flux<ProductChangeDTO> streamChanges(Long after) {
+        return changeStream.subscribe(after);
+    }
+
+    private Flux<Product> withImages(Flux<Product> products) {
+        return products.buffer(exportPrefetch)
+                .concatMap(this::withImages, 1)
+                .flatMapIterable(chunk -> chunk);
+    }
+
+    /**
+     * Replaces the product with the request. With an {@code If-Match} tag the write is a single conditional
+     * update and nothing is read first; without one the current version is read and the write still fails
+     * if another update lands in between.
+     */
     @Transactional
-    public Mono updateProduct(Mono<ProductRequest> productRequest) {
-        return productRequest.flatMap(el -> productRepository.findById(el.getId()).flatMap(inner -> {
-                    if (inner.getId() != null)
-                        return productRepository.save(inner);
-                    else
-                        return Mono.error(new HttpClientErrorException(HttpStatus.GONE, "element does not exists"));
-                }
-        ));
+    public Mono<ResponseEntity> updateProduct(Mono<ProductRequest> productRequest, String ifMatch) {
+        return productRequest.flatMap(el -> {
+            if (el.getId() == null)
+                return Mono.error(DomainException.ELEMENT_GONE);
+            if (el.getId() <= 0)
+                return Mono.error(DomainException.ID_MUST_BE_POSITIVE);
+
+            var expected = ifMatch == null ? ProductETag.ANY : ProductETag.matchVersion(ifMatch, el.getId());
+            if (expected == ProductETag.NO_MATCH)
+                return Mono.error(DomainException.VERSION_MISMATCH);
+
+            var product = productMapper.apply(el);
+            if (expected != ProductETag.ANY)
+                return update(product, expected);
+
+            return productRepository.findById(el.getId())
+                    .switchIfEmpty(Mono.error(DomainException.ELEMENT_GONE))
+                    .flatMap(inner -> {
+                        if (inner.getId() == null)
+                            return Mono.error(DomainException.ELEMENT_GONE);
+                        if (!inner.getSku().equals(product.getSku()))
+                            return Mono.error(DomainException.SKU_IMMUTABLE);
+                        return update(product, inner.getVersion());
+                    });
+        });
     }
 
+    /**
+     * The update is conditional on the sku as well, so a failed one reads the product to tell a changed sku,
+     * which no retry can fix, from a stale version.
+     */
+    private Mono<ResponseEntity> update(Product product, long expectedVersion) {
+        return productRepository.update(product, expectedVersion).flatMap(updated -> {
+            if (!updated)
+                return productRepository.findById(product.getId())
+                        .filter(current -> !current.getSku().equals(product.getSku()))
+                        .flatMap(current -> Mono.<ResponseEntity>error(DomainException.SKU_IMMUTABLE))
+                        .switchIfEmpty(Mono.error(DomainException.VERSION_MISMATCH));
+
+            return productRepository.deleteImages(product.getId())
+                    .then(saveImages(List.of(product)))
+                    .then(AfterCommit.run(() -> {
+                        productCache.put(product);
+                        snapshot.put(product);
+                    }))
+                    .then(changeStream.publishAfterCommit(ProductChangeDTO.Type.UPDATED, product.getSku(), product))
+                    .thenReturn(ResponseEntity.ok().eTag(ProductETag.of(product)).body(product));
+        });
+    }
+
+    /**
+     * Changes only the given fields with one {@code UPDATE} keyed by sku, without reading the product. A price
+     * change is a single round trip; replacing the images needs the product id, which is read unless the
+     * {@code If-Match} tag already names it. An {@code If-Match} listing several tags is checked against the
+     * current id first, as a {@code PUT} does.
+     */
     @Transactional
-    public Mono deleteProduct(String sku) {
-        if (!sku.matches(REGEX_SKU))
-            return Mono.error(new HttpClientErrorException(HttpStatus.BAD_REQUEST, REGEX_MESSAGE_ERROR));
+    public Mono<ResponseEntity> patchProduct(String sku, Mono<ProductPatchRequest> patchRequest, String ifMatch) {
+        var parsed = Sku.parse(sku);
+        var rejection = checkSku(parsed);
+        if (rejection != null)
+            return Mono.error(rejection);
+
+        var conditional = ifMatch != null && !ifMatch.trim().equals("*");
+        ProductETag expected = null;
+        if (conditional && ifMatch.indexOf(',') < 0) {
+            expected = ProductETag.parse(ifMatch);
+            if (expected == null)
+                return Mono.error(DomainException.VERSION_MISMATCH);
+        }
 
-        var s = Integer.parseInt(sku.split("-")[1]);
-        if (s < 1000000 || s > 99999999)
-            return Mono.error(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "sku range is bad"));
+        var single = expected;
+        return patchRequest.flatMap(el -> {
+            if (el.isEmpty())
+                return Mono.error(DomainException.NOTHING_TO_UPDATE);
 
-        return productRepository.deleteBySku(sku).flatMap(el -> {
+            var changes = new Product(sku, el.getName(), el.getBrand(), el.getSize(), el.getPrice(), el.getPrincipalImage(), el.getOtherImages());
+            changes.setSkuNumber(parsed.getNumber());
+            if (!conditional || single != null)
+                return patch(parsed, changes, single);
+
+            // several tags may name different ids, so the current id picks the one the update is conditional on
+            return productRepository.findBySkuNumberAndSku(parsed.getNumber(), sku)
+                    .switchIfEmpty(Mono.error(DomainException.VERSION_MISMATCH))
+                    .flatMap(current -> {
+                        var tag = ProductETag.match(ifMatch, current.getId());
+                        return tag == null ? Mono.error(DomainException.VERSION_MISMATCH) : patch(parsed, changes, tag);
+                    });
+        });
+    }
+
+    private Mono<ResponseEntity> patch(Sku parsed, Product changes, ProductETag tag) {
+        var sku = changes.getSku();
+        return productRepository.patch(changes, tag == null ? null : tag.getId(), tag == null ? null : tag.getVersion())
+                .flatMap(updated -> {
+                    if (!updated)
+                        return Mono.error(tag == null ? DomainException.NOT_FOUND : DomainException.VERSION_MISMATCH);
+
+                    var published = AfterCommit.run(() -> productCache.evict(sku))
+                            .then(refreshSnapshot(parsed.getNumber(), sku))
+                            .then(changeStream.publishAfterCommit(ProductChangeDTO.Type.UPDATED, sku, null));
+                    if (changes.getOtherImages() == null)
+                        return published.thenReturn(patched(tag));
+
+                    var id = tag != null ? Mono.just(tag.getId())
+                            : productRepository.findBySkuNumberAndSku(parsed.getNumber(), sku).map(Product::getId);
+                    return id.flatMap(productId -> {
+                        changes.setId(productId);
+                        return productRepository.deleteImages(productId).then(saveImages(List.of(changes)));
+                    }).then(published).thenReturn(patched(tag));
+                });
+    }
+
+    /**
+     * A patch only knows the fields it changed, so with the snapshot enabled the patched product is read back
+     * within the transaction and stored once it commits.
+     */
+    private Mono<Void> refreshSnapshot(long skuNumber, String sku) {
+        if (!snapshot.isEnabled())
+            return Mono.empty();
+
+        return productRepository.findBySkuNumberAndSku(skuNumber, sku)
+                .flatMap(this::withImages)
+                .flatMap(product -> AfterCommit.run(() -> snapshot.put(product)));
+    }
+
+    private static ResponseEntity<MessageDTO> patched(ProductETag expected) {
+        var response = ResponseEntity.ok();
+        if (expected != null)
+            response.eTag(ProductETag.of(expected.getId(), expected.getVersion() + 1));
+        return response.body(new MessageDTO("updated"));
+    }
+
+    @Transactional
+    public Mono deleteProduct(String sku) {
+        var parsed = Sku.parse(sku);
+        var rejection = checkSku(parsed);
+        if (rejection != null)
+            return Mono.error(rejection);
+
+        return productRepository.deleteBySkuNumberAndSku(parsed.getNumber(), sku).flatMap(el -> {
             if (el)
-                return Mono.just(ResponseEntity.ok().body(new MessageDTO("deleted")));
+                return AfterCommit.run(() -> {
+                            productCache.evict(sku);
+                            snapshot.remove(sku);
+                        })
+                        .then(changeStream.publishAfterCommit(ProductChangeDTO.Type.DELETED, sku, null))
+                        .thenReturn(ResponseEntity.ok().body(new MessageDTO("deleted")));
             else
-                return Mono.error(new HttpClientErrorException(HttpStatus.NOT_FOUND, "already deleted"));
+                return Mono.error(DomainException.ALREADY_DELETED);
         });
     }
+
+    /**
+     * Spring only reports a {@link DuplicateKeyException} for some drivers, so the unique violation
+     * SQLSTATE of the underlying R2DBC exception is checked as well.
+     */
+    private static boolean isDuplicateKey(Throwable e) {
+        if (e instanceof DuplicateKeyException)
+            return true;
+
+        return e instanceof DataIntegrityViolationException
+                && e.getCause() instanceof R2dbcException
+                && SQL_STATE_UNIQUE_VIOLATION.equals(((R2dbcException) e.getCause()).getSqlState());
+    }
+
+    private static DomainException checkSku(Sku sku) {
+        if (sku == null)
+            return DomainException.SKU_FORMAT;
+
+        if (!sku.inRange())
+            return DomainException.SKU_RANGE;
+
+        return null;
+    }
 }
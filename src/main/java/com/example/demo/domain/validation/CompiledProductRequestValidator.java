@@ -0,0 +1,138 @@
+package com.example.demo.domain.validation;
+
+import com.example.demo.domain.Sku;
+import com.example.demo.domain.request.ProductRequest;
+
+import java.util.List;
+
+/**
+ * The constraints of {@link ProductRequest}, written out by hand so checking a request needs no reflection,
+ * no constraint metadata and no regex engine. Checks run in field declaration order and stop at the first
+ * violation, whose message is the one Bean Validation reports for the same constraint.
+ */
+public final class CompiledProductRequestValidator {
+    static final String SKU_BLANK = "sku: Must not be null";
+    static final String SKU_FORMAT = "sku: Invalid sku format";
+    static final String NAME_BLANK = "name: Must not be blank";
+    static final String NAME_SIZE = "name: Min 3 characters, max 50";
+    static final String BRAND_BLANK = "brand: Must not be blank";
+    static final String BRAND_SIZE = "brand: Min 3 characters, max 50";
+    static final String SIZE_BLANK = "size: Must not be blank";
+    static final String PRICE_NULL = "price: Must not be blank";
+    static final String PRICE_MIN = "price: invalid min value";
+    static final String PRICE_MAX = "price: reaches max value";
+    static final String PRINCIPAL_IMAGE = "principalImage: element doesn't match";
+    static final String OTHER_IMAGES_NULL = "otherImages: element must not be null";
+    static final String OTHER_IMAGES = "otherImages: element doesn't match";
+
+    private static final double MIN_PRICE = 1.00;
+    private static final double MAX_PRICE = 99999999.00;
+    private static final String[] SCHEMES = {"http://", "https://", "ftp://", "file://"};
+    private static final int MIN_URL_LENGTH = 7;
+
+    /**
+     * {@link ProductRequest#URL_PATTERN} matched as two
+     * character tables: every character after the scheme must be in {@link #URL_BODY} and the last one,
+     * which must exist, in {@link #URL_END}.
+     */
+    private static final boolean[] URL_BODY = characters("-+&@#/%?=~_|!:,.;");
+    private static final boolean[] URL_END = characters("-+&@#/%=~_|");
+
+    /**
+     * @return the message of the first violated constraint, or {@code null} when the request is valid
+     */
+    public String validate(ProductRequest request) {
+        var sku = request.getSku();
+        if (isBlank(sku))
+            return SKU_BLANK;
+        if (!Sku.isValid(sku))
+            return SKU_FORMAT;
+
+        var name = request.getName();
+        if (isBlank(name))
+            return NAME_BLANK;
+        if (name.length() < 3 || name.length() > 50)
+            return NAME_SIZE;
+
+        var brand = request.getBrand();
+        if (isBlank(brand))
+            return BRAND_BLANK;
+        if (brand.length() < 3 || brand.length() > 50)
+            return BRAND_SIZE;
+
+        if (isBlank(request.getSize()))
+            return SIZE_BLANK;
+
+        var price = request.getPrice();
+        if (price == null)
+            return PRICE_NULL;
+        if (!(price >= MIN_PRICE))
+            return PRICE_MIN;
+        if (price > MAX_PRICE)
+            return PRICE_MAX;
+
+        var principalImage = request.getPrincipalImage();
+        if (principalImage != null && !isUrl(principalImage))
+            return PRINCIPAL_IMAGE;
+
+        List<String> otherImages = request.getOtherImages();
+        if (otherImages != null)
+            for (String url : otherImages) {
+                if (url == null)
+                    return OTHER_IMAGES_NULL;
+                if (!isUrl(url))
+                    return OTHER_IMAGES;
+            }
+
+        return null;
+    }
+
+    /**
+     * Same definition as {@code @NotBlank}: {@code null}, or nothing left after {@link String#trim()}.
+     */
+    private static boolean isBlank(String value) {
+        if (value == null)
+            return true;
+        for (int i = 0; i < value.length(); i++)
+            if (value.charAt(i) > ' ')
+                return false;
+        return true;
+    }
+
+    static boolean isUrl(String value) {
+        if (value.length() < MIN_URL_LENGTH)
+            return false;
+
+        int start = -1;
+        for (String scheme : SCHEMES)
+            if (value.startsWith(scheme)) {
+                start = scheme.length();
+                break;
+            }
+        if (start < 0 || start == value.length())
+            return false;
+
+        int last = value.length() - 1;
+        for (int i = start; i < last; i++)
+            if (!in(URL_BODY, value.charAt(i)))
+                return false;
+        return in(URL_END, value.charAt(last));
+    }
+
+    private static boolean in(boolean[] table, char c) {
+        return c < table.length && table[c];
+    }
+
+    private static boolean[] characters(String symbols) {
+        var table = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++)
+            table[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++)
+            table[c] = true;
+        for (char c = '0'; c <= '9'; c++)
+            table[c] = true;
+        for (int i = 0; i < symbols.length(); i++)
+            table[symbols.charAt(i)] = true;
+        return table;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.domain.validation;
+
+import com.example.demo.domain.request.ProductRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import javax.validation.ConstraintViolation;
+import java.util.stream.Collectors;
+
+/**
+ * Validates {@link ProductRequest} with the {@link CompiledProductRequestValidator} when
+ * {@code product.validation.mode} is {@code compiled}, and with Bean Validation when it is {@code bean}.
+ * Every other type always goes to Bean Validation.
+ */
+@Component
+public class ProductRequestValidator implements Validator {
+    private final boolean compiled;
+    private final CompiledProductRequestValidator compiledValidator = new CompiledProductRequestValidator();
+    private final javax.validation.Validator beanValidator;
+    private final SpringValidatorAdapter beanValidatorAdapter;
+
+    public ProductRequestValidator(@Value("${product.validation.mode:compiled}") String mode,
+                                   javax.validation.Validator beanValidator) {
+        if (!mode.equals("compiled") && !mode.equals("bean"))
+            throw new IllegalArgumentException("product.validation.mode must be compiled or bean: " + mode);
+
+        this.compiled = mode.equals("compiled");
+        this.beanValidator = beanValidator;
+        this.beanValidatorAdapter = new SpringValidatorAdapter(beanValidator);
+    }
+
+    /**
+     * @return {@code null} for a valid request; otherwise the first violation in compiled mode, or every
+     * violation sorted and joined with {@code "; "} in bean mode
+     */
+    public String check(ProductRequest request) {
+        if (compiled)
+            return compiledValidator.validate(request);
+
+        var violations = beanValidator.validate(request);
+        if (violations.isEmpty())
+            return null;
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        if (compiled && target instanceof ProductRequest) {
+            var message = compiledValidator.validate((ProductRequest) target);
+            if (message != null)
+                errors.reject("ProductRequest", message);
+            return;
+        }
+        beanValidatorAdapter.validate(target, errors);
+    }
+}
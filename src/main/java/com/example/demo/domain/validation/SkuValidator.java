@@ -0,0 +1,13 @@
+package com.example.demo.domain.validation;
+
+import com.example.demo.domain.Sku;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class SkuValidator implements ConstraintValidator<ValidSku, CharSequence> {
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || Sku.isValid(value);
+    }
+}
@@ -1,27 +1,102 @@
 package com.example.demo.presentation;
 
+import com.example.demo.config.ClientIdentity;
+import com.example.demo.config.CodecConfig;
+import com.example.demo.data.entity.Product;
+import com.example.demo.domain.cache.IdempotencyStore;
+import com.example.demo.domain.dto.BulkResultDTO;
+import com.example.demo.domain.dto.ProductChangeDTO;
+import com.example.demo.domain.dto.ProductLookupDTO;
+import com.example.demo.domain.dto.ProductPageDTO;
+import com.example.demo.domain.request.ProductPatchRequest;
 import com.example.demo.domain.request.ProductRequest;
+import com.example.demo.domain.request.ProductSearchRequest;
 import com.example.demo.domain.service.ProductService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.util.Arrays;
+import java.util.List;
 
 @RestController
 @RequestMapping("/product")
 @SuppressWarnings("rawtypes")
 public class ProductController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final ProductService productService;
+    private final IdempotencyStore idempotencyStore;
+    private final ClientIdentity clientIdentity;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, IdempotencyStore idempotencyStore, ClientIdentity clientIdentity) {
         this.productService = productService;
+        this.idempotencyStore = idempotencyStore;
+        this.clientIdentity = clientIdentity;
     }
 
     @PostMapping("/")
-    public Mono<Object> create(@Valid @RequestBody Mono<ProductRequest> productRequest) {
-        return productService.saveProduct(productRequest);
+    public Mono<Object> create(@Valid @RequestBody Mono<ProductRequest> productRequest,
+                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                               ServerWebExchange exchange) {
+        if (idempotencyKey == null)
+            return productService.saveProduct(productRequest);
+
+        return productRequest.flatMap(el -> idempotencyStore.execute("POST /product/", clientIdentity.of(exchange), idempotencyKey, el,
+                () -> productService.saveProduct(Mono.just(el))));
+    }
+
+    @PostMapping(value = "/bulk",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkResultDTO> createAll(@RequestBody Flux<ProductRequest> productRequests) {
+        return productService.saveProducts(productRequests);
+    }
+
+    @GetMapping(params = "skus")
+    public Mono<ProductLookupDTO> obtainProductsBySkus(@RequestParam List<String> skus) {
+        return productService.lookupProductsBySkus(skus);
+    }
+
+    @GetMapping
+    public Mono<ProductPageDTO> obtainProducts(@RequestParam(defaultValue = "0") long after,
+                                               @RequestParam(defaultValue = "50") int limit,
+                                               @RequestParam(defaultValue = "true") boolean images) {
+        return productService.findProductsPage(after, limit, images);
+    }
+
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+            CodecConfig.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<Product> exportProducts(@RequestParam(defaultValue = "true") boolean images) {
+        return productService.exportProducts(images);
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, CodecConfig.APPLICATION_SMILE_VALUE, CodecConfig.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<Product> searchProducts(ProductSearchRequest search) {
+        return productService.searchProducts(search);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ProductChangeDTO>> streamChangeEvents(@RequestParam(required = false) Long after,
+                                                                      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return productService.streamChanges(lastEventId != null ? lastEventId : after)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(Long.toString(change.getSequence()))
+                        .event(change.getType().name())
+                        .build());
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductChangeDTO> streamChanges(@RequestParam(required = false) Long after) {
+        return productService.streamChanges(after);
     }
 
     @GetMapping("/{sku}")
@@ -30,8 +105,22 @@ public class ProductController {
     }
 
     @PutMapping("/")
-    public Mono updateProduct(@Valid @RequestBody Mono<ProductRequest> productRequest) {
-        return productService.updateProduct(productRequest);
+    public Mono<ResponseEntity> updateProduct(@Valid @RequestBody Mono<ProductRequest> productRequest,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                              ServerWebExchange exchange) {
+        if (idempotencyKey == null)
+            return productService.updateProduct(productRequest, ifMatch);
+
+        return productRequest.flatMap(el -> idempotencyStore.execute("PUT /product/", clientIdentity.of(exchange), idempotencyKey, Arrays.asList(el, ifMatch),
+                () -> productService.updateProduct(Mono.just(el), ifMatch)));
+    }
+
+    @PatchMapping("/{sku}")
+    public Mono<ResponseEntity> patchProduct(@PathVariable String sku,
+                                             @Valid @RequestBody Mono<ProductPatchRequest> patchRequest,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return productService.patchProduct(sku, patchRequest, ifMatch);
     }
 
     @DeleteMapping("/{sku}")
@@ -1,11 +1,29 @@
-create table product
+create table if not exists product
 (
-    id              bigint auto_increment,
-    sku             varchar(50),
+    id              bigint auto_increment primary key,
+    sku             varchar(50) not null,
+    sku_number      bigint      not null,
     name            varchar(50),
     brand           varchar(50),
     size            varchar(50),
     price           number,
     principal_image varchar,
-    other_images     varchar
-);
\ No newline at end of file
+    version         bigint      not null default 0
+);
+
+create unique index if not exists product_sku_uidx on product (sku_number, sku);
+
+create table if not exists product_image
+(
+    product_id bigint  not null,
+    position   int     not null,
+    url        varchar not null,
+    primary key (product_id, position),
+    foreign key (product_id) references product (id) on delete cascade
+);
+
+-- Catalog filters: brand and size are equalities and price is a range, so price comes last.
+-- Brand alone uses the prefix of the first index.
+create index if not exists product_brand_size_price_idx on product (brand, size, price);
+create index if not exists product_size_price_idx on product (size, price);
+create index if not exists product_price_idx on product (price);
@@ -0,0 +1,82 @@
+package com.example.demo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application in a fresh JVM, so nothing is already loaded or compiled, and logs the time from
+ * launching it to its first successful request and to its readiness probe reporting UP. Only run by the
+ * {@code startup-test} Maven profile.
+ */
+@Slf4j
+class StartupTimeTest {
+    private static final Duration LIMIT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "fast-startup"})
+    void timeToFirstSuccessfulRequest(String profile) throws Exception {
+        //arrange
+        var port = freePort();
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Dserver.port=" + port);
+        command.add("-Dmanagement.endpoint.health.probes.enabled=true");
+        if (!profile.equals("default"))
+            command.add("-Dspring.profiles.active=" + profile);
+        command.add(DemoApplication.class.getName());
+
+        //act
+        var started = System.nanoTime();
+        var process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            var firstRequest = awaitOk(process, started, "http://localhost:" + port + "/product?limit=1");
+            var ready = awaitOk(process, started, "http://localhost:" + port + "/actuator/health/readiness");
+
+            //assert
+            log.info("startup [{}]: first successful request after {} ms, ready after {} ms",
+                    profile, firstRequest.toMillis(), ready.toMillis());
+            assertTrue(firstRequest.compareTo(LIMIT) < 0);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private Duration awaitOk(Process process, long started, String url) throws InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).build();
+        while (System.nanoTime() - started < LIMIT.toNanos()) {
+            assertTrue(process.isAlive(), "application exited");
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                    return Duration.ofNanos(System.nanoTime() - started);
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(20);
+        }
+        return LIMIT;
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
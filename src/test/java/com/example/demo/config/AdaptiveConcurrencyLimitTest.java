@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void givenSlowResponsesTheLimitWillShrinkOncePerTarget() {
+        //arrange
+        var limit = new AdaptiveConcurrencyLimit(100, 10, 200, TARGET, 0);
+
+        //act
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(TARGET * 2, TARGET);
+        }
+
+        //assert
+        assertEquals(90, limit.getLimit());
+    }
+
+    @Test
+    void givenFastResponsesUnderLoadTheLimitWillGrowByOne() {
+        //arrange
+        var limit = new AdaptiveConcurrencyLimit(4, 1, 200, TARGET, 0);
+        for (int i = 0; i < 4; i++)
+            limit.tryAcquire();
+
+        //act
+        for (int i = 0; i < 4; i++) {
+            limit.release(TARGET / 2, TARGET);
+            limit.tryAcquire();
+        }
+
+        //assert
+        assertEquals(5, limit.getLimit());
+    }
+}
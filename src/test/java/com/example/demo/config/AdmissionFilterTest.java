@@ -0,0 +1,79 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.exception.DomainException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class AdmissionFilterTest {
+    private static final WebFilterChain COMPLETED = exchange -> Mono.empty();
+
+    AdmissionFilter filter(double rate, int burst, int concurrencyLimit) {
+        return new AdmissionFilter(true, new ClientIdentity("X-API-Key"), rate, burst, Duration.ofMinutes(10), 1000,
+                concurrencyLimit, concurrencyLimit, concurrencyLimit, Duration.ofMillis(250),
+                List.of("/product/changes"), new SimpleMeterRegistry());
+    }
+
+    MockServerWebExchange exchange(String path, String apiKey) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).header("X-API-Key", apiKey));
+    }
+
+    @Test
+    void givenSomeClientOverItsBurstItWillBeRejectedWithRetryAfter() {
+        //arrange
+        var filter = filter(1, 2, 100);
+        filter.filter(exchange("/product/FAL-1000000", "partner"), COMPLETED).block();
+        filter.filter(exchange("/product/FAL-1000000", "partner"), COMPLETED).block();
+        var rejected = exchange("/product/FAL-1000000", "partner");
+
+        //act and assert
+        StepVerifier.create(filter.filter(rejected, COMPLETED))
+                .expectErrorMatches(e -> e == DomainException.RATE_LIMITED)
+                .verify();
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        StepVerifier.create(filter.filter(exchange("/product/FAL-1000000", "other_partner"), COMPLETED))
+                .verifyComplete();
+    }
+
+    @Test
+    void givenTheConcurrencyLimitInUseItWillRejectWithServiceUnavailable() {
+        //arrange
+        var filter = filter(0, 0, 1);
+        var pending = filter.filter(exchange("/product/FAL-1000000", "partner"), exchange -> Mono.never()).subscribe();
+        var rejected = exchange("/product/FAL-1000001", "other_partner");
+
+        //act and assert
+        StepVerifier.create(filter.filter(rejected, COMPLETED))
+                .expectErrorMatches(e -> e == DomainException.OVERLOADED)
+                .verify();
+        assertNotNull(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        StepVerifier.create(filter.filter(exchange("/product/changes", "other_partner"), COMPLETED))
+                .verifyComplete();
+
+        pending.dispose();
+        StepVerifier.create(filter.filter(exchange("/product/FAL-1000001", "other_partner"), COMPLETED))
+                .verifyComplete();
+    }
+
+    @Test
+    void givenSomeRequestOutsideTheProductApiItWillNotBeLimited() {
+        //arrange
+        var filter = filter(1, 1, 100);
+        filter.filter(exchange("/actuator/prometheus", "scraper"), COMPLETED).block();
+
+        //act and assert
+        StepVerifier.create(filter.filter(exchange("/actuator/prometheus", "scraper"), COMPLETED))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.exception.DomainException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.pool.PoolAcquirePendingLimitException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HandlerConfigTest {
+    private final HandlerConfig handlerConfig = new HandlerConfig(new ObjectMapper(), new Jackson2ObjectMapperBuilder(), new SimpleMeterRegistry());
+
+    @Test
+    void givenSomeClientErrorItWillRenderItsStatusAndMessage() {
+        //arrange
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product/some_sku"));
+
+        //act
+        handlerConfig.handle(exchange, DomainException.SKU_RANGE).block();
+
+        //assert
+        assertEquals(HttpStatus.BAD_REQUEST, exchange.getResponse().getStatusCode());
+        assertEquals("{\"message\":\"400 sku range is bad\"}", exchange.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void givenSomeDynamicDomainErrorItWillRenderItsMessage() {
+        //arrange
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product?limit=0"));
+
+        //act
+        handlerConfig.handle(exchange, new DomainException(HttpStatus.BAD_REQUEST, "limit must be between 1 and 500")).block();
+
+        //assert
+        assertEquals(HttpStatus.BAD_REQUEST, exchange.getResponse().getStatusCode());
+        assertEquals("{\"message\":\"400 limit must be between 1 and 500\"}", exchange.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void givenTooManyPendingAcquiresItWillReturnServiceUnavailable() {
+        //arrange
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product/FAL-1000000"));
+        var ex = new DataAccessResourceFailureException("Failed to obtain R2DBC Connection", new PoolAcquirePendingLimitException(256));
+
+        //act
+        handlerConfig.handle(exchange, ex).block();
+
+        //assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+        assertEquals("1", exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void givenAnAcquireTimeoutItWillReturnServiceUnavailable() {
+        //arrange
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product/FAL-1000000"));
+        var ex = new DataAccessResourceFailureException("Failed to obtain R2DBC Connection",
+                new R2dbcPoolConfig.AcquireTimeoutException(new R2dbcTimeoutException("Connection Acquisition timed out after 1000ms")));
+
+        //act
+        handlerConfig.handle(exchange, ex).block();
+
+        //assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void givenAStatementTimeoutItWillReturnInternalServerError() {
+        //arrange
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product/FAL-1000000"));
+        var ex = new QueryTimeoutException("query timed out", new R2dbcTimeoutException("statement timeout"));
+
+        //act
+        handlerConfig.handle(exchange, ex).block();
+
+        //assert
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exchange.getResponse().getStatusCode());
+        assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void givenSomeUnexpectedErrorItWillHideTheMessage() {
+        //arrange
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product/FAL-1000000"));
+
+        //act
+        handlerConfig.handle(exchange, new IllegalStateException("internal detail")).block();
+
+        //assert
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exchange.getResponse().getStatusCode());
+        assertEquals("{\"message\":\"\"}", exchange.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void givenSomeCborAcceptHeaderItWillRenderTheErrorAsCbor() throws Exception {
+        //arrange
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product/some_sku")
+                .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON));
+
+        //act
+        handlerConfig.handle(exchange, DomainException.SKU_RANGE).block();
+
+        //assert
+        var body = DataBufferUtils.join(exchange.getResponse().getBody()).map(buffer -> buffer.asInputStream(true)).block();
+        assertEquals(MediaType.APPLICATION_CBOR, exchange.getResponse().getHeaders().getContentType());
+        assertEquals("400 sku range is bad", CodecConfig.cborMapper(new Jackson2ObjectMapperBuilder()).readTree(body).get("message").asText());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.request.ProductRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.timing.enabled=true", "product.admission.rate=0"})
+@AutoConfigureWebTestClient
+class RequestTimingConfigTest {
+    private static final String STAGE = ";dur=\\d+\\.\\d{2}";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void givenSomeCreateEveryStageWillBeInTheServerTimingHeader() {
+        //arrange
+        var productRequest = ProductRequest.builder()
+                .sku("FAL-9000001")
+                .name("some_name")
+                .brand("some_brand")
+                .size("L")
+                .price(1.0)
+                .build();
+
+        //act
+        var serverTiming = webTestClient.post()
+                .uri("/product/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(productRequest)
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getFirst("Server-Timing");
+
+        //assert
+        assertTrue(serverTiming.matches("decode" + STAGE + ", validate" + STAGE + ", db" + STAGE + ", encode" + STAGE + ", total" + STAGE), serverTiming);
+    }
+
+    @Test
+    void givenSomeInvalidProductTheRepositoryWillNotBeTimed() {
+        //act
+        var serverTiming = webTestClient.post()
+                .uri("/product/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ProductRequest.builder().sku("FAL-9000002").build())
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getFirst("Server-Timing");
+
+        //assert
+        assertTrue(serverTiming.startsWith("decode"), serverTiming);
+        assertTrue(serverTiming.contains("validate;dur="), serverTiming);
+        assertFalse(serverTiming.contains("db;dur="), serverTiming);
+    }
+}
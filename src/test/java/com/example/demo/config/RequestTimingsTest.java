@@ -0,0 +1,20 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestTimingsTest {
+
+    @Test
+    void givenSomeStagesOnlyThoseThatRanWillBeReportedInMilliseconds() {
+        //arrange
+        var timings = new RequestTimings();
+        timings.add(RequestTimings.Stage.DB, 1_200_000);
+        timings.add(RequestTimings.Stage.DB, 640_000);
+        timings.add(RequestTimings.Stage.ENCODE, 45_000);
+
+        //act and assert
+        assertEquals("db;dur=1.84, encode;dur=0.05, total;dur=2312.31", timings.serverTiming(2_312_305_000L));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketsTest {
+
+    @Test
+    void givenSomeEmptiedBucketItWillRefillAtTheRate() {
+        //arrange
+        var clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        var buckets = new TokenBuckets(10, 3, Duration.ofMinutes(1), 100, clock::get);
+        for (int i = 0; i < 3; i++)
+            assertEquals(0, buckets.tryAcquire("partner"));
+
+        //act
+        var wait = buckets.tryAcquire("partner");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        var afterOneInterval = buckets.tryAcquire("partner");
+        var secondInTheSameInterval = buckets.tryAcquire("partner");
+
+        //assert
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+        assertEquals(0, afterOneInterval);
+        assertTrue(secondInTheSameInterval > 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.data.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProductFilterQueryPlanTest {
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @Autowired
+    R2dbcEntityTemplate template;
+
+    String plan(ProductFilter.ProductFilterBuilder filter) {
+        return new ProductBatchRepositoryImpl(databaseClient, template)
+                .filterStatement("explain ", filter.limit(50).build())
+                .map(row -> row.get(0, String.class))
+                .one()
+                .block()
+                .toUpperCase();
+    }
+
+    @Test
+    void givenBrandAndSizeTheBrandSizePriceIndexWillBeUsed() {
+        //act
+        var plan = plan(ProductFilter.builder().brand("some_brand").size("L").sort(ProductFilter.Sort.ID));
+
+        //assert
+        assertTrue(plan.contains("PRODUCT_BRAND_SIZE_PRICE_IDX"), plan);
+    }
+
+    @Test
+    void givenBrandOnlyTheBrandSizePriceIndexWillBeUsed() {
+        //act
+        var plan = plan(ProductFilter.builder().brand("some_brand").minPrice(10.0).sort(ProductFilter.Sort.PRICE));
+
+        //assert
+        assertTrue(plan.contains("PRODUCT_BRAND_SIZE_PRICE_IDX"), plan);
+    }
+
+    @Test
+    void givenSizeAndPriceRangeTheSizePriceIndexWillBeUsed() {
+        //act
+        var plan = plan(ProductFilter.builder().size("L").minPrice(10.0).maxPrice(20.0).sort(ProductFilter.Sort.PRICE));
+
+        //assert
+        assertTrue(plan.contains("PRODUCT_SIZE_PRICE_IDX"), plan);
+    }
+
+    @Test
+    void givenPriceRangeAndPriceKeysetThePriceIndexWillBeUsed() {
+        //act
+        var plan = plan(ProductFilter.builder().minPrice(10.0).maxPrice(20.0).sort(ProductFilter.Sort.PRICE).afterPrice(12.0).afterId(7));
+
+        //assert
+        assertTrue(plan.contains("PRODUCT_PRICE_IDX: PRICE >= ?3"), plan);
+    }
+
+    @Test
+    void givenNoFilterTheIdKeysetWillUseThePrimaryKey() {
+        //act
+        var plan = plan(ProductFilter.builder().sort(ProductFilter.Sort.ID).afterId(7));
+
+        //assert
+        assertTrue(plan.contains("PRIMARY_KEY"), plan);
+        assertFalse(plan.contains("TABLESCAN"), plan);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.domain;
+
+import com.example.demo.data.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductETagTest {
+
+    @Test
+    void givenSomeProductItWillTagItWithIdAndVersion() {
+        Product product = new Product();
+        product.setId(7L);
+        product.setVersion(3L);
+        assertEquals("\"7-3\"", ProductETag.of(product));
+    }
+
+    @Test
+    void givenSomeIfMatchItWillReturnTheVersionOfTheSameProduct() {
+        assertEquals(3L, ProductETag.matchVersion("\"7-3\"", 7L));
+        assertEquals(4L, ProductETag.matchVersion("\"8-1\", \"7-4\"", 7L));
+        assertEquals(ProductETag.ANY, ProductETag.matchVersion(" * ", 7L));
+    }
+
+    @Test
+    void givenSomeWeakOrForeignTagItWillNotMatch() {
+        assertEquals(ProductETag.NO_MATCH, ProductETag.matchVersion("W/\"7-3\"", 7L));
+        assertEquals(ProductETag.NO_MATCH, ProductETag.matchVersion("\"8-3\"", 7L));
+        assertEquals(ProductETag.NO_MATCH, ProductETag.matchVersion("\"7-x\"", 7L));
+        assertEquals(ProductETag.NO_MATCH, ProductETag.matchVersion("garbage", 7L));
+    }
+}
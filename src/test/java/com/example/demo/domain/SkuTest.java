@@ -0,0 +1,30 @@
+package com.example.demo.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkuTest {
+
+    @Test
+    void givenWellFormedSkusItWillParseTheNumber() {
+        assertEquals(1000000L, Sku.parseNumber("FAL-1000000"));
+        assertEquals(42L, Sku.parseNumber("L--42"));
+        assertEquals(99999999L, Sku.parseNumber("AAF-0099999999"));
+    }
+
+    @Test
+    void givenMalformedSkusItWillReturnInvalid() {
+        for (String sku : new String[]{null, "", "FAL", "FAL-", "-1000000", "FAB-1000000", "FAL1000000", "FAL-10a", "FAL-1000000 ", "some_sku"})
+            assertEquals(Sku.INVALID, Sku.parseNumber(sku), String.valueOf(sku));
+    }
+
+    @Test
+    void givenAnOverflowingNumberItWillSaturateOutOfRange() {
+        var sku = Sku.parse("FAL-99999999999999999999999");
+
+        assertNotNull(sku);
+        assertEquals(Long.MAX_VALUE, sku.getNumber());
+        assertFalse(sku.inRange());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.domain.exception.DomainException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdempotencyStoreTest {
+
+    @Test
+    void givenConcurrentRequestsWithTheSameKeyOnlyOneWillRun() {
+        //arrange
+        var registry = new SimpleMeterRegistry();
+        var store = new IdempotencyStore(true, 100, Duration.ofMinutes(1), registry);
+        var pending = Sinks.<String>one();
+        var runs = new AtomicInteger();
+        var received = new ArrayList<String>();
+
+        //act
+        for (int i = 0; i < 5; i++)
+            store.execute("POST", "partner", "some_key", "some_request", () -> {
+                runs.incrementAndGet();
+                return pending.asMono();
+            }).subscribe(received::add);
+        pending.tryEmitValue("created");
+        store.execute("POST", "partner", "some_key", "some_request", () -> Mono.just("again")).subscribe(received::add);
+
+        //assert
+        assertEquals(1, runs.get());
+        assertEquals(6, received.size());
+        received.forEach(el -> assertEquals("created", el));
+        assertEquals(5.0, registry.get("product.idempotency").tag("outcome", "replayed").counter().count());
+    }
+
+    @Test
+    void givenSomeKeyReusedForAnotherRequestItWillFail() {
+        //arrange
+        var store = new IdempotencyStore(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        store.execute("POST", "partner", "some_key", "some_request", () -> Mono.just("created")).block();
+
+        //act and assert
+        StepVerifier.create(store.execute("POST", "partner", "some_key", "other_request", () -> Mono.just("created")))
+                .expectErrorMatches(e -> e == DomainException.IDEMPOTENCY_KEY_REUSED)
+                .verify();
+    }
+
+    @Test
+    void givenTheSameKeyFromAnotherClientItWillRunOnItsOwn() {
+        //arrange
+        var store = new IdempotencyStore(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        store.execute("POST", "partner", "some_key", "some_request", () -> Mono.just("created")).block();
+
+        //act and assert
+        StepVerifier.create(store.execute("POST", "other_partner", "some_key", "other_request", () -> Mono.just("created again")))
+                .expectNext("created again")
+                .verifyComplete();
+        StepVerifier.create(store.execute("POST", "other_partner", "some_key", "other_request", () -> Mono.just("created twice")))
+                .expectNext("created again")
+                .verifyComplete();
+    }
+
+    @Test
+    void givenSomeServerErrorTheRetryWillRunAgain() {
+        //arrange
+        var store = new IdempotencyStore(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        var runs = new AtomicInteger();
+
+        //act
+        for (int i = 0; i < 2; i++)
+            store.execute("POST", "partner", "some_key", "some_request", () -> {
+                runs.incrementAndGet();
+                return Mono.error(new IllegalStateException("connection lost"));
+            }).onErrorResume(e -> Mono.empty()).block();
+
+        //assert
+        assertEquals(2, runs.get());
+    }
+}
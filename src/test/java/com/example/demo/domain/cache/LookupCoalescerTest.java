@@ -0,0 +1,59 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LookupCoalescerTest {
+
+    @Test
+    void givenConcurrentLookupsOfTheSameSkuOnlyOneWillQuery() {
+        //arrange
+        var registry = new SimpleMeterRegistry();
+        var coalescer = new LookupCoalescer(registry);
+        var product = new Product("FAL-1000000", "some_name", "some_brand", "L", 1.0, null, null);
+        var pending = Sinks.<Product>one();
+        var queries = new AtomicInteger();
+        var received = new ArrayList<Product>();
+
+        //act
+        for (int i = 0; i < 10; i++)
+            coalescer.load("FAL-1000000", sku -> {
+                queries.incrementAndGet();
+                return pending.asMono();
+            }).subscribe(received::add);
+        pending.tryEmitValue(product);
+
+        //assert
+        assertEquals(1, queries.get());
+        assertEquals(10, received.size());
+        received.forEach(el -> assertSame(product, el));
+        assertEquals(9.0, registry.get("product.lookups").tag("outcome", "coalesced").counter().count());
+        assertEquals(0.0, registry.get("product.lookups.in.flight").gauge().value());
+    }
+
+    @Test
+    void givenSomeFinishedLookupTheNextOneWillQueryAgain() {
+        //arrange
+        var coalescer = new LookupCoalescer(new SimpleMeterRegistry());
+        var queries = new AtomicInteger();
+
+        //act
+        for (int i = 0; i < 2; i++)
+            coalescer.load("FAL-1000000", sku -> {
+                queries.incrementAndGet();
+                return Mono.empty();
+            }).block();
+
+        //assert
+        assertEquals(2, queries.get());
+    }
+}
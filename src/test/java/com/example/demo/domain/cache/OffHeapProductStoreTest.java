@@ -0,0 +1,113 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapProductStoreTest {
+
+    @Test
+    void givenSomeProductItWillReadBackEveryField() {
+        //arrange
+        var store = new OffHeapProductStore(OffHeapProductStore.MIN_SLOTS, OffHeapProductStore.MIN_DATA_BYTES);
+        var product = product(7L, 3L, "FAL-1000000");
+        product.setPrincipalImage("https://cdn.example.com/ñandú.jpg");
+        product.setOtherImages(List.of("https://cdn.example.com/1.jpg", "https://cdn.example.com/2.jpg"));
+
+        //act
+        assertTrue(store.put(1000000L, product));
+        var found = store.get(1000000L, "FAL-1000000");
+
+        //assert
+        assertEquals(7L, found.getId());
+        assertEquals(3L, found.getVersion());
+        assertEquals(1000000L, found.getSkuNumber());
+        assertEquals("some_name", found.getName());
+        assertEquals("some_brand", found.getBrand());
+        assertEquals("L", found.getSize());
+        assertEquals(129.99, found.getPrice());
+        assertEquals("https://cdn.example.com/ñandú.jpg", found.getPrincipalImage());
+        assertEquals(product.getOtherImages(), found.getOtherImages());
+        assertNull(store.get(1000001L, "FAL-1000001"));
+    }
+
+    @Test
+    void givenSkusSharingTheirNumberEachWillKeepItsOwnProduct() {
+        //arrange
+        var store = new OffHeapProductStore(OffHeapProductStore.MIN_SLOTS, OffHeapProductStore.MIN_DATA_BYTES);
+        store.put(1000000L, product(1L, 0L, "FAL-1000000"));
+        store.put(1000000L, product(2L, 0L, "F-1000000"));
+
+        //act
+        store.put(1000000L, product(1L, 1L, "FAL-1000000"));
+        store.remove(1000000L, "F-1000000");
+
+        //assert
+        assertEquals(1L, store.get(1000000L, "FAL-1000000").getVersion());
+        assertNull(store.get(1000000L, "F-1000000"));
+        assertNull(store.get(1000000L, "A-1000000"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void givenSomeRemovedSkuItWillNotBringBackAnOlderVersion() {
+        //arrange
+        var store = new OffHeapProductStore(OffHeapProductStore.MIN_SLOTS, OffHeapProductStore.MIN_DATA_BYTES);
+        store.put(1000000L, product(1L, 0L, "FAL-1000000"));
+        store.put(1000000L, product(2L, 0L, "F-1000000"));
+        store.put(1000000L, product(1L, 1L, "FAL-1000000"));
+
+        //act
+        store.remove(1000000L, "FAL-1000000");
+
+        //assert
+        assertNull(store.get(1000000L, "FAL-1000000"));
+        assertEquals(2L, store.get(1000000L, "F-1000000").getId());
+        assertEquals(1, store.size());
+        assertNull(store.resize(false).get(1000000L, "FAL-1000000"));
+    }
+
+    @Test
+    void givenSomeOlderVersionItWillKeepTheNewerOne() {
+        //arrange
+        var store = new OffHeapProductStore(OffHeapProductStore.MIN_SLOTS, OffHeapProductStore.MIN_DATA_BYTES);
+        store.put(1000000L, product(1L, 2L, "FAL-1000000"));
+
+        //act
+        store.put(1000000L, product(1L, 1L, "FAL-1000000"));
+
+        //assert
+        assertEquals(2L, store.get(1000000L, "FAL-1000000").getVersion());
+    }
+
+    @Test
+    void givenAFullStoreTheResizedOneWillKeepOnlyTheCurrentProducts() {
+        //arrange
+        var store = new OffHeapProductStore(OffHeapProductStore.MIN_SLOTS, OffHeapProductStore.MIN_DATA_BYTES);
+        var number = 1000000L;
+        while (store.put(number, product(number, 0L, "FAL-" + number)))
+            number++;
+        for (long i = 1000000L; i < number; i += 2)
+            store.remove(i, "FAL-" + i);
+
+        //act
+        var resized = store.resize(false);
+
+        //assert
+        assertEquals(store.size(), resized.size());
+        assertEquals(store.liveBytes(), resized.liveBytes());
+        assertNull(resized.get(1000000L, "FAL-1000000"));
+        assertEquals(1000001L, resized.get(1000001L, "FAL-1000001").getId());
+        assertTrue(resized.put(number, product(number, 0L, "FAL-" + number)));
+    }
+
+    private static Product product(long id, long version, String sku) {
+        var product = new Product(sku, "some_name", "some_brand", "L", 129.99, null, null);
+        product.setId(id);
+        product.setVersion(version);
+        return product;
+    }
+}
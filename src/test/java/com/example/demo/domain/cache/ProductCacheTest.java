@@ -0,0 +1,64 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductCacheTest {
+
+    @Test
+    void givenSomeUpdateCommittedDuringALoadTheLoadedProductWillNotBeCached() {
+        //arrange
+        var cache = new ProductCache(true, 100, Duration.ofMinutes(5));
+        var pending = Sinks.<Product>one();
+        cache.get("FAL-1000000", sku -> pending.asMono()).subscribe();
+
+        //act
+        cache.put(product(1L));
+        pending.tryEmitValue(product(0L));
+
+        //assert
+        assertEquals(1L, cache.getIfPresent("FAL-1000000").getVersion());
+    }
+
+    @Test
+    void givenSomeDeleteCommittedDuringALoadTheLoadedProductWillNotBeCached() {
+        //arrange
+        var cache = new ProductCache(true, 100, Duration.ofMinutes(5));
+        var pending = Sinks.<Product>one();
+        cache.get("FAL-1000000", sku -> pending.asMono()).subscribe();
+
+        //act
+        cache.evict("FAL-1000000");
+        pending.tryEmitValue(product(0L));
+
+        //assert
+        assertNull(cache.getIfPresent("FAL-1000000"));
+    }
+
+    @Test
+    void givenSomeOlderVersionItWillKeepTheNewerOne() {
+        //arrange
+        var cache = new ProductCache(true, 100, Duration.ofMinutes(5));
+        cache.put(product(2L));
+
+        //act
+        cache.put(product(1L));
+        cache.putLoaded(product(0L), cache.generation("FAL-1000000"));
+
+        //assert
+        assertEquals(2L, cache.getIfPresent("FAL-1000000").getVersion());
+    }
+
+    private static Product product(long version) {
+        var product = new Product("FAL-1000000", "some_name", "some_brand", "L", 1.0, null, null);
+        product.setId(1L);
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.domain.cache;
+
+import com.example.demo.data.entity.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSnapshotTest {
+
+    @Test
+    void givenWritesDuringARebuildTheNewSnapshotWillIncludeThem() {
+        //arrange
+        var registry = new SimpleMeterRegistry();
+        var snapshot = new ProductSnapshot(true, registry);
+        var catalog = Sinks.many().unicast().<Product>onBackpressureBuffer();
+        snapshot.rebuild(catalog.asFlux()).subscribe();
+
+        //act
+        catalog.tryEmitNext(product(1L, 0L, "FAL-1000000"));
+        catalog.tryEmitNext(product(2L, 0L, "FAL-1000001"));
+        snapshot.put(product(1L, 1L, "FAL-1000000"));
+        snapshot.remove("FAL-1000001");
+        snapshot.put(product(3L, 0L, "FAL-1000002"));
+        assertFalse(snapshot.isLoaded());
+        catalog.tryEmitComplete();
+
+        //assert
+        assertTrue(snapshot.isLoaded());
+        assertEquals(1L, snapshot.find("FAL-1000000", 1000000L).getVersion());
+        assertNull(snapshot.find("FAL-1000001", 1000001L));
+        assertEquals(3L, snapshot.find("FAL-1000002", 1000002L).getId());
+        assertEquals(2.0, registry.get("product.snapshot.products").gauge().value());
+    }
+
+    private static Product product(long id, long version, String sku) {
+        var product = new Product(sku, "some_name", "some_brand", "L", 129.99, null, null);
+        product.setId(id);
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.domain.event;
+
+import com.example.demo.domain.dto.ProductChangeDTO;
+import com.example.demo.domain.exception.DomainException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductChangeStreamTest {
+
+    @Test
+    void givenSomeRetainedOffsetItWillReplayTheLaterChangesThenFollowNewOnes() {
+        //arrange
+        var stream = new ProductChangeStream(3, 16, "drop-oldest", new SimpleMeterRegistry());
+        for (int i = 1; i <= 4; i++)
+            stream.publish(ProductChangeDTO.Type.DELETED, "FAL-100000" + i, null);
+
+        //act and assert
+        StepVerifier.create(stream.subscribe(2L).map(ProductChangeDTO::getSequence))
+                .expectNext(3L, 4L)
+                .then(() -> stream.publish(ProductChangeDTO.Type.DELETED, "FAL-1000005", null))
+                .expectNext(5L)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void givenSomeOffsetNoLongerRetainedItWillFail() {
+        //arrange
+        var stream = new ProductChangeStream(3, 16, "drop-oldest", new SimpleMeterRegistry());
+        for (int i = 1; i <= 5; i++)
+            stream.publish(ProductChangeDTO.Type.DELETED, "FAL-100000" + i, null);
+
+        //act and assert
+        StepVerifier.create(stream.subscribe(1L))
+                .expectErrorMatches(e -> e == DomainException.OFFSET_EXPIRED)
+                .verify();
+    }
+
+    @Test
+    void givenSomeSlowSubscriberDropOldestWillKeepTheLatestChanges() {
+        //arrange
+        var registry = new SimpleMeterRegistry();
+        var stream = new ProductChangeStream(100, 2, "drop-oldest", registry);
+
+        //act and assert
+        StepVerifier.create(stream.subscribe(null).map(ProductChangeDTO::getSequence), 0)
+                .then(() -> {
+                    for (int i = 1; i <= 5; i++)
+                        stream.publish(ProductChangeDTO.Type.DELETED, "FAL-100000" + i, null);
+                })
+                .thenRequest(2)
+                .expectNext(4L, 5L)
+                .thenCancel()
+                .verify();
+        assertEquals(3.0, registry.get("product.changes.overflow").counter().count());
+    }
+
+    @Test
+    void givenSomeSlowSubscriberDisconnectWillEndItsStream() {
+        //arrange
+        var stream = new ProductChangeStream(100, 2, "disconnect", new SimpleMeterRegistry());
+
+        //act and assert
+        StepVerifier.create(stream.subscribe(null).map(ProductChangeDTO::getSequence), 0)
+                .then(() -> {
+                    for (int i = 1; i <= 5; i++)
+                        stream.publish(ProductChangeDTO.Type.DELETED, "FAL-100000" + i, null);
+                })
+                .thenRequest(10)
+                .expectNext(1L, 2L)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.domain.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MicroBatcherTest {
+
+    @Test
+    void givenConcurrentSubmissionsTheyWillShareOneBatch() {
+        //arrange
+        var registry = new SimpleMeterRegistry();
+        var batches = new CopyOnWriteArrayList<Integer>();
+        var batcher = new MicroBatcher<Integer, Integer>("test.batch", 10, Duration.ofMillis(200), 1, batch -> {
+            batches.add(batch.size());
+            batch.forEach(request -> {
+                if (request.getItem() % 2 == 0)
+                    request.complete(request.getItem() * 10);
+                else
+                    request.fail(new IllegalStateException("odd"));
+            });
+            return Mono.empty();
+        }, registry);
+
+        //act
+        List<String> results = Flux.range(0, 4)
+                .flatMap(i -> batcher.submit(i).map(String::valueOf).onErrorResume(e -> Mono.just(e.getMessage())))
+                .collectSortedList()
+                .block();
+
+        //assert
+        assertEquals(List.of(4), batches);
+        assertEquals(List.of("0", "20", "odd", "odd"), results);
+        assertEquals(4.0, registry.get("test.batch.size").summary().totalAmount());
+        assertEquals(4, registry.get("test.batch.queue.delay").timer().count());
+    }
+
+    @Test
+    void givenSomeFailingHandlerEveryRequestOfTheBatchWillFail() {
+        //arrange
+        var batcher = new MicroBatcher<Integer, Integer>("test.batch", 2, Duration.ofMillis(50), 1,
+                batch -> Mono.error(new IllegalStateException("down")), new SimpleMeterRegistry());
+
+        //act
+        List<String> results = Flux.range(0, 2)
+                .flatMap(i -> batcher.submit(i).map(String::valueOf).onErrorResume(e -> Mono.just(e.getMessage())))
+                .collectList()
+                .block();
+
+        //assert
+        assertEquals(List.of("down", "down"), results);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.domain.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "product.create-batch.enabled=true")
+class ProductServiceBatchingConcurrencyTest extends ProductServiceConcurrencyTest {
+
+    @Override
+    String sku() {
+        return "FAL-3000001";
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.domain.service;
+
+import com.example.demo.domain.exception.DomainException;
+import com.example.demo.domain.request.ProductRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ProductServiceConcurrencyTest {
+    private static final int ATTEMPTS = 64;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    String sku() {
+        return "FAL-3000000";
+    }
+
+    @Test
+    void givenConcurrentCreatesForTheSameSkuOnlyOneWillBeStored() {
+        //arrange
+        String sku = sku();
+        var created = new AtomicInteger();
+        var taken = new AtomicInteger();
+
+        //act
+        Flux.range(0, ATTEMPTS)
+                .flatMap(i -> productService.saveProduct(Mono.just(ProductRequest.builder()
+                                        .brand("some_brand")
+                                        .name("some_name")
+                                        .price(1.0)
+                                        .sku(sku)
+                                        .size("L")
+                                        .build()))
+                                .doOnNext(__ -> created.incrementAndGet())
+                                .onErrorResume(DomainException.class, e -> {
+                                    if (e.getStatus() == HttpStatus.UNPROCESSABLE_ENTITY)
+                                        taken.incrementAndGet();
+                                    return Mono.empty();
+                                })
+                                .subscribeOn(Schedulers.parallel()),
+                        ATTEMPTS)
+                .blockLast();
+
+        //assert
+        var stored = databaseClient.sql("select count(*) as total from product where sku = :sku")
+                .bind("sku", sku)
+                .map(row -> row.get("total", Long.class))
+                .one()
+                .block();
+        assertEquals(1, created.get());
+        assertEquals(ATTEMPTS - 1, taken.get());
+        assertEquals(1L, stored);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.domain.service;
+
+import com.example.demo.data.repository.ProductRepository;
+import com.example.demo.domain.request.ProductRequest;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+
+@SpringBootTest
+class ProductServiceTest {
+
+    @Autowired
+    ProductService productService;
+
+    @SpyBean
+    ProductRepository productRepository;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @Test
+    void givenSomeCreateWhoseImagesFailTheProductWillNotBeStored() {
+        //arrange
+        var sku = "FAL-3000100";
+        var productRequest = ProductRequest.builder()
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku(sku)
+                .size("L")
+                .otherImages(List.of("https://cdn.example.com/1.jpg"))
+                .build();
+        Mockito.doReturn(Mono.error(new DataAccessResourceFailureException("connection lost")))
+                .when(productRepository).insertImages(anyList());
+
+        //act
+        StepVerifier.create(productService.saveProduct(Mono.just(productRequest)))
+                .expectError()
+                .verify();
+
+        //assert
+        var stored = databaseClient.sql("select count(*) as total from product where sku = :sku")
+                .bind("sku", sku)
+                .map(row -> row.get("total", Long.class))
+                .one()
+                .block();
+        assertEquals(0L, stored);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.domain.validation;
+
+import com.example.demo.domain.request.ProductRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parity with Bean Validation: a valid request is valid for both, a request with one violation gets the same
+ * message, and with several violations the compiled validator reports one of them.
+ */
+class CompiledProductRequestValidatorTest {
+    private static ValidatorFactory validatorFactory;
+    private static Validator beanValidator;
+    private final CompiledProductRequestValidator compiledValidator = new CompiledProductRequestValidator();
+
+    @BeforeAll
+    static void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        beanValidator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void givenSomeValidRequestBothWillAcceptIt() {
+        assertParity(request(el -> {
+        }));
+        assertParity(request(el -> el.principalImage("https://cdn.example.com/a.jpg").otherImages(List.of("ftp://x/1", "file:///tmp/a.png"))));
+        assertParity(request(el -> el.name("abc").brand(" ".repeat(2) + "x").price(1.0)));
+        assertParity(request(el -> el.name("n".repeat(50)).price(99999999.0)));
+    }
+
+    @Test
+    void givenEachFieldViolationTheMessageWillMatch() {
+        List<Consumer<ProductRequest.ProductRequestBuilder>> cases = List.of(
+                el -> el.sku(null),
+                el -> el.sku("some_sku"),
+                el -> el.sku("FAL-"),
+                el -> el.name(null),
+                el -> el.name("ab"),
+                el -> el.name("n".repeat(51)),
+                el -> el.brand(null),
+                el -> el.brand("b".repeat(51)),
+                el -> el.size(null),
+                el -> el.size(" \t"),
+                el -> el.price(null),
+                el -> el.price(0.99),
+                el -> el.price(-1.0),
+                el -> el.price(Double.NEGATIVE_INFINITY),
+                el -> el.price(99999999.01),
+                el -> el.price(Double.POSITIVE_INFINITY),
+                el -> el.otherImages(Arrays.asList("https://ok/1", null)),
+                el -> el.otherImages(Arrays.asList("https://ok/1", "nope")));
+        for (var modification : cases) {
+            var request = request(modification);
+            assertEquals(1, beanMessages(request).size(), beanMessages(request).toString());
+            assertParity(request);
+        }
+    }
+
+    @Test
+    void givenSomeUrlsTheyWillMatchLikeThePattern() {
+        for (String url : new String[]{"https://a", "http://a.b/c?d=e&f=g#h", "https://", "http:/a", "HTTP://a", "https://a.b/", "https://a.b/c.",
+                "https://a.b/c;", "https://a.b/c,", "https://a b", "https://ñ", "https://a/ñ/b", "mailto:a@b", "ftp://a!", "ftp://a|", "file://~",
+                "https://a.b/c:", "https://a.b/(c)", "https://a.b/c_d-e+f", "sftp://a", "httpss://a", " https://a", "https://a "})
+            assertParity(request(el -> el.principalImage(url)));
+    }
+
+    @Test
+    void givenSeveralViolationsTheCompiledValidatorWillFailFastWithOneOfThem() {
+        var request = request(el -> el.sku(" ").name("").price(0.5).principalImage("not an url"));
+
+        var compiled = compiledValidator.validate(request);
+        assertTrue(beanMessages(request).contains(compiled), compiled);
+        assertEquals(CompiledProductRequestValidator.SKU_BLANK, compiled);
+    }
+
+    private void assertParity(ProductRequest request) {
+        var bean = beanMessages(request);
+        var compiled = compiledValidator.validate(request);
+        if (bean.isEmpty())
+            assertNull(compiled);
+        else if (bean.size() == 1)
+            assertEquals(bean.iterator().next(), compiled);
+        else
+            assertTrue(bean.contains(compiled), bean + " / " + compiled);
+    }
+
+    private static Set<String> beanMessages(ProductRequest request) {
+        return beanValidator.validate(request).stream().map(ConstraintViolation::getMessage).collect(Collectors.toSet());
+    }
+
+    private static ProductRequest request(Consumer<ProductRequest.ProductRequestBuilder> modification) {
+        var builder = ProductRequest.builder()
+                .sku("FAL-1000000")
+                .name("some_name")
+                .brand("some_brand")
+                .size("L")
+                .price(10.0);
+        modification.accept(builder);
+        return builder.build();
+    }
+}
@@ -1,10 +1,24 @@
 package com.example.demo.presentation;
 
+import com.example.demo.config.ClientIdentity;
+import com.example.demo.config.CodecConfig;
 import com.example.demo.data.entity.Product;
+import com.example.demo.data.entity.ProductImage;
+import com.example.demo.data.repository.ProductFilter;
 import com.example.demo.data.repository.ProductRepository;
 import com.example.demo.domain.ProductMapper;
+import com.example.demo.domain.cache.IdempotencyStore;
+import com.example.demo.domain.cache.LookupCoalescer;
+import com.example.demo.domain.cache.ProductCache;
+import com.example.demo.domain.cache.ProductSnapshot;
+import com.example.demo.domain.dto.BulkResultDTO;
+import com.example.demo.domain.event.ProductChangeStream;
 import com.example.demo.domain.request.ProductRequest;
 import com.example.demo.domain.service.ProductService;
+import com.example.demo.domain.validation.ProductRequestValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
@@ -13,29 +27,61 @@ import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @WebFluxTest(controllers = ProductController.class)
-@Import(ProductService.class)
+@Import({ClientIdentity.class, ProductService.class, ProductCache.class, ProductSnapshot.class, LookupCoalescer.class, IdempotencyStore.class, ProductChangeStream.class, ProductRequestValidator.class, SimpleMeterRegistry.class})
 class ProductControllerTest {
 
     @MockBean
     ProductRepository productRepository;
 
+    @MockBean
+    TransactionalOperator transactionalOperator;
+
     @SpyBean
     ProductMapper productMapper;
 
+    @Autowired
+    ProductCache productCache;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Autowired
     private WebTestClient webTestClient;
 
+    @BeforeEach
+    void setUp() {
+        productCache.evictAll();
+        Mockito.when(productRepository.findImages(anyCollection())).thenReturn(Flux.empty());
+        Mockito.when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
     @Test
     void givenSomeProductRequestWithSkuAlreadyTaken() {
 
@@ -48,10 +94,7 @@ class ProductControllerTest {
                 .size("L")
                 .build();
 
-        Product mockedProduct = new Product("some_sku", "some_name", "some_brand", "some_size", 1.0, null, null);
-
-        Mockito.when(productRepository.findBySku(anyString())).thenReturn(Mono.just(mockedProduct));
-        Mockito.when(productRepository.save(any(Product.class))).thenReturn(Mono.just(new Product()));
+        Mockito.when(productRepository.save(any(Product.class))).thenReturn(Mono.error(new DuplicateKeyException("product_sku_uidx")));
 
         //act and assert
         webTestClient
@@ -60,7 +103,34 @@ class ProductControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(BodyInserters.fromValue(productRequest))
                 .exchange()
-                .expectStatus().is4xxClientError();
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void givenSomeNullImageTheRequestWillBeRejected() {
+        //arrange
+        String body = "{\"sku\":\"FAL-1000018\",\"name\":\"some_name\",\"brand\":\"some_brand\",\"size\":\"L\",\"price\":1.0,"
+                + "\"otherImages\":[\"http://a/x\",null]}";
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/product/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$[0].message").isEqualTo("otherImages: element must not be null");
+        webTestClient
+                .patch()
+                .uri("/product/FAL-1000018")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"otherImages\":[\"http://a/x\",null]}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        Mockito.verify(productRepository, Mockito.never()).save(any(Product.class));
+        Mockito.verify(productRepository, Mockito.never()).patch(any(Product.class), any(), any());
     }
 
     @Test
@@ -74,7 +144,6 @@ class ProductControllerTest {
                 .size("L")
                 .build();
 
-        Mockito.when(productRepository.findBySku(anyString())).thenReturn(Mono.empty());
         Mockito.when(productRepository.save(any(Product.class))).thenReturn(Mono.just(new Product()));
 
         //act and assert
@@ -87,6 +156,56 @@ class ProductControllerTest {
                 .expectStatus().is2xxSuccessful();
     }
 
+    @Test
+    void givenSomeIdempotencyKeyTheRetriedCreateWillNotSaveAgain() {
+        //arrange
+        ProductRequest productRequest = ProductRequest.builder()
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku("FAL-1000009")
+                .size("L")
+                .build();
+
+        Mockito.when(productRepository.save(any(Product.class))).thenReturn(Mono.just(new Product()));
+
+        //act and assert
+        for (int i = 0; i < 2; i++)
+            webTestClient
+                    .post()
+                    .uri("/product/")
+                    .header("Idempotency-Key", "some_key")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(BodyInserters.fromValue(productRequest))
+                    .exchange()
+                    .expectStatus().is2xxSuccessful();
+        Mockito.verify(productRepository, Mockito.times(1)).save(any(Product.class));
+    }
+
+    @Test
+    void givenSomeInvalidProductRequestItWillReturnTheFirstViolation() {
+        //arrange
+        ProductRequest productRequest = ProductRequest.builder()
+                .brand("some_brand")
+                .name("so")
+                .price(0.5)
+                .sku("FAL-1000000")
+                .size("L")
+                .build();
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/product/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(productRequest))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].message").isEqualTo("name: Min 3 characters, max 50");
+    }
+
     @Test
     void givenSomeInvalidSkuWillReturnHttp400() {
         //arrange
@@ -122,12 +241,54 @@ class ProductControllerTest {
                 .expectStatus().isBadRequest();
     }
 
+    @Test
+    void givenSomeClientErrorItWillCountItByStatus() {
+        //arrange
+        String sku = "some_sku";
+        double before = errorCount("400");
+
+        //act
+        webTestClient
+                .get()
+                .uri("/product/" + sku)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        //assert
+        assertEquals(before + 1, errorCount("400"));
+    }
+
+    private double errorCount(String status) {
+        var counter = meterRegistry.find("product.errors").tags("handler", "HandlerConfig", "status", status).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void givenSomeDeleteDuringALookupALateJoinedLookupWillNotCacheTheDeletedProduct() {
+        //arrange
+        String sku = "FAL-1000019";
+        var pending = Sinks.<Product>one();
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), eq(sku))).thenReturn(pending.asMono());
+        var first = productService.findProductBySku(sku).toFuture();
+
+        //act
+        productCache.evict(sku);
+        var joined = productService.findProductBySku(sku).toFuture();
+        pending.tryEmitValue(new Product(sku, "some_name", "some_brand", "L", 1.0, null, null));
+
+        //assert
+        assertEquals(HttpStatus.OK, first.join().getStatusCode());
+        assertEquals(HttpStatus.OK, joined.join().getStatusCode());
+        assertNull(productCache.getIfPresent(sku));
+        Mockito.verify(productRepository, Mockito.times(1)).findBySkuNumberAndSku(anyLong(), eq(sku));
+    }
+
     @Test
     void givenSomeSkuItWillReturnAProduct() {
         //arrange
         String sku = "FAL-1000000";
 
-        Mockito.when(productRepository.findBySku(anyString())).thenReturn(Mono.just(new Product()));
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(new Product()));
 
         //act and assert
         webTestClient
@@ -137,12 +298,36 @@ class ProductControllerTest {
                 .expectStatus().is2xxSuccessful();
     }
 
+    @Test
+    void givenSomeCborAcceptHeaderItWillReturnTheProductAsCbor() throws Exception {
+        //arrange
+        Product product = new Product("FAL-1000015", "some_name", "some_brand", "L", 1.0, null, null);
+        product.setId(51L);
+
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(product));
+
+        //act
+        var body = webTestClient
+                .get()
+                .uri("/product/FAL-1000015")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        //assert
+        assertEquals("FAL-1000015", CodecConfig.cborMapper(new Jackson2ObjectMapperBuilder()).readValue(body, Product.class).getSku());
+    }
+
     @Test
     void givenSomeSkuItWillReturnNoContent() {
         //arrange
         String sku = "FAL-1000000";
 
-        Mockito.when(productRepository.findBySku(anyString())).thenReturn(Mono.empty());
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.empty());
 
         //act and assert
         webTestClient
@@ -164,10 +349,15 @@ class ProductControllerTest {
                 .size("L")
                 .build();
 
-        Product mockedProduct = new Product("some_sku", "some_name", "some_brand", "some_size", 1.0, null, null);
+        Product mockedProduct = new Product("FAL-1000000", "some_name", "some_brand", "some_size", 1.0, null, null);
         mockedProduct.setId(1L);
+        mockedProduct.setVersion(3L);
         Mockito.when(productRepository.findById(anyLong())).thenReturn(Mono.just(mockedProduct));
-        Mockito.when(productRepository.save(any(Product.class))).thenReturn(Mono.just(mockedProduct));
+        Mockito.when(productRepository.update(any(Product.class), eq(3L))).thenAnswer(invocation -> {
+            invocation.getArgument(0, Product.class).setVersion(4L);
+            return Mono.just(Boolean.TRUE);
+        });
+        Mockito.when(productRepository.deleteImages(1L)).thenReturn(Mono.empty());
 
         //act and assert
         webTestClient
@@ -176,7 +366,213 @@ class ProductControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(BodyInserters.fromValue(productRequest))
                 .exchange()
-                .expectStatus().is2xxSuccessful();
+                .expectStatus().is2xxSuccessful()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1-4\"");
+    }
+
+    @Test
+    void givenSomeStaleIfMatchTheUpdateWillFailWithoutReadingFirst() {
+        //arrange
+        ProductRequest productRequest = ProductRequest.builder()
+                .id(1L)
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku("FAL-1000000")
+                .size("L")
+                .build();
+        Product current = new Product("FAL-1000000", "some_name", "some_brand", "L", 1.0, null, null);
+        current.setId(1L);
+        current.setVersion(3L);
+
+        Mockito.when(productRepository.update(any(Product.class), eq(2L))).thenReturn(Mono.just(Boolean.FALSE));
+        Mockito.when(productRepository.findById(1L)).thenReturn(Mono.just(current));
+
+        //act and assert
+        webTestClient
+                .put()
+                .uri("/product/")
+                .header(HttpHeaders.IF_MATCH, "\"1-2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(productRequest))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        var inOrder = Mockito.inOrder(productRepository);
+        inOrder.verify(productRepository).update(any(Product.class), eq(2L));
+        inOrder.verify(productRepository).findById(1L);
+    }
+
+    @Test
+    void givenSomeChangedSkuTheUpdateWillReturnHttp422() {
+        //arrange
+        ProductRequest productRequest = ProductRequest.builder()
+                .id(1L)
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku("FAL-1000001")
+                .size("L")
+                .build();
+        Product current = new Product("FAL-1000000", "some_name", "some_brand", "L", 1.0, null, null);
+        current.setId(1L);
+        current.setVersion(2L);
+
+        Mockito.when(productRepository.update(any(Product.class), eq(2L))).thenReturn(Mono.just(Boolean.FALSE));
+        Mockito.when(productRepository.findById(1L)).thenReturn(Mono.just(current));
+
+        //act and assert
+        for (String ifMatch : Arrays.asList("\"1-2\"", null))
+            webTestClient
+                    .put()
+                    .uri("/product/")
+                    .headers(headers -> {
+                        if (ifMatch != null)
+                            headers.setIfMatch(ifMatch);
+                    })
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(BodyInserters.fromValue(productRequest))
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .expectBody().jsonPath("$.message").isEqualTo("422 sku cannot be changed");
+        Mockito.verify(productRepository, Mockito.times(1)).update(any(Product.class), anyLong());
+    }
+
+    @Test
+    void givenSomeNonPositiveIdTheUpdateWillReturnHttp400() {
+        //arrange
+        ProductRequest productRequest = ProductRequest.builder()
+                .id(0L)
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku("FAL-1000000")
+                .size("L")
+                .build();
+
+        //act and assert
+        webTestClient
+                .put()
+                .uri("/product/")
+                .header(HttpHeaders.IF_MATCH, "\"0-2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(productRequest))
+                .exchange()
+                .expectStatus().isBadRequest();
+        Mockito.verify(productRepository, Mockito.never()).update(any(Product.class), anyLong());
+    }
+
+    @Test
+    void givenSomePriceChangeItWillPatchWithoutReading() {
+        //arrange
+        String sku = "FAL-1000015";
+
+        Mockito.when(productRepository.patch(any(Product.class), isNull(), isNull())).thenReturn(Mono.just(Boolean.TRUE));
+
+        //act and assert
+        webTestClient
+                .patch()
+                .uri("/product/" + sku)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"price\":25.0}")
+                .exchange()
+                .expectStatus().isOk();
+        Mockito.verify(productRepository).patch(Mockito.argThat(el -> el.getPrice() == 25.0 && el.getName() == null && sku.equals(el.getSku())), isNull(), isNull());
+        Mockito.verify(productRepository, Mockito.never()).findBySkuNumberAndSku(anyLong(), anyString());
+    }
+
+    @Test
+    void givenSomeBlankFieldThePatchWillReturnHttp422() {
+        //act and assert
+        for (String body : List.of("{\"size\":\"  \"}", "{\"name\":\"   \"}", "{\"brand\":\"   \"}"))
+            webTestClient
+                    .patch()
+                    .uri("/product/FAL-1000017")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(body)
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        Mockito.verify(productRepository, Mockito.never()).patch(any(Product.class), any(), any());
+    }
+
+    @Test
+    void givenSomeIfMatchListingTheCurrentTagThePatchWillSucceed() {
+        //arrange
+        String sku = "FAL-1000018";
+        Product current = new Product(sku, "some_name", "some_brand", "L", 1.0, null, null);
+        current.setId(7L);
+        current.setVersion(3L);
+
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), eq(sku))).thenReturn(Mono.just(current));
+        Mockito.when(productRepository.patch(any(Product.class), eq(7L), eq(3L))).thenReturn(Mono.just(Boolean.TRUE));
+
+        //act and assert
+        webTestClient
+                .patch()
+                .uri("/product/" + sku)
+                .header(HttpHeaders.IF_MATCH, "\"6-3\", \"7-3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"price\":25.0}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"7-4\"");
+    }
+
+    @Test
+    void givenSomeIfMatchListingNoCurrentTagThePatchWillReturnHttp412() {
+        //arrange
+        String sku = "FAL-1000019";
+        Product current = new Product(sku, "some_name", "some_brand", "L", 1.0, null, null);
+        current.setId(7L);
+        current.setVersion(3L);
+
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), eq(sku))).thenReturn(Mono.just(current));
+
+        //act and assert
+        webTestClient
+                .patch()
+                .uri("/product/" + sku)
+                .header(HttpHeaders.IF_MATCH, "\"6-3\", \"8-3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"price\":25.0}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        Mockito.verify(productRepository, Mockito.never()).patch(any(Product.class), any(), any());
+    }
+
+    @Test
+    void givenSomeUnknownSkuThePatchWillReturnHttp404() {
+        //arrange
+        Mockito.when(productRepository.patch(any(Product.class), isNull(), isNull())).thenReturn(Mono.just(Boolean.FALSE));
+
+        //act and assert
+        webTestClient
+                .patch()
+                .uri("/product/FAL-1000016")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"price\":25.0}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void givenSomeCurrentETagTheProductWillNotBeResent() {
+        //arrange
+        String sku = "FAL-1000014";
+        Product product = new Product(sku, "some_name", "some_brand", "L", 1.0, null, null);
+        product.setId(41L);
+        product.setVersion(0L);
+
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(product));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product/" + sku)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"41-0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"41-0\"")
+                .expectBody().isEmpty();
     }
 
     @Test
@@ -209,7 +605,7 @@ class ProductControllerTest {
         //arrange
         String sku = "FAL-1000000";
 
-        Mockito.when(productRepository.deleteBySku(anyString())).thenReturn(Mono.just(Boolean.TRUE));
+        Mockito.when(productRepository.deleteBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(Boolean.TRUE));
         //act and assert
         webTestClient
                 .delete()
@@ -217,4 +613,268 @@ class ProductControllerTest {
                 .exchange()
                 .expectStatus().isEqualTo(HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenSomeSkuRequestedTwiceItWillBeServedFromCache() {
+        //arrange
+        String sku = "FAL-1000001";
+
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(new Product(sku, "some_name", "some_brand", "L", 1.0, null, null)));
+
+        //act and assert
+        for (int i = 0; i < 2; i++) {
+            webTestClient
+                    .get()
+                    .uri("/product/" + sku)
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        Mockito.verify(productRepository, Mockito.times(1)).findBySkuNumberAndSku(1000001L, sku);
+    }
+
+    @Test
+    void deleteProductWillEvictCachedSku() {
+        //arrange
+        String sku = "FAL-1000002";
+
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(new Product(sku, "some_name", "some_brand", "L", 1.0, null, null)));
+        Mockito.when(productRepository.deleteBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(Boolean.TRUE));
+
+        //act and assert
+        webTestClient.get().uri("/product/" + sku).exchange().expectStatus().isOk();
+        webTestClient.delete().uri("/product/" + sku).exchange().expectStatus().isOk();
+
+        Mockito.when(productRepository.findBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.empty());
+        webTestClient
+                .get()
+                .uri("/product/" + sku)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    void givenSomeProductRequestsItWillCreateThemInBulk() {
+        //arrange
+        ProductRequest fresh = ProductRequest.builder()
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku("FAL-1000003")
+                .size("L")
+                .build();
+        ProductRequest taken = ProductRequest.builder()
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku("FAL-1000004")
+                .size("L")
+                .build();
+        ProductRequest invalid = ProductRequest.builder()
+                .brand("some_brand")
+                .name("some_name")
+                .price(1.0)
+                .sku("some_sku")
+                .size("L")
+                .build();
+
+        Product saved = new Product("FAL-1000003", "some_name", "some_brand", "L", 1.0, null, null);
+        saved.setId(1L);
+        Mockito.when(productRepository.findExistingSkus(anyCollection(), anyCollection())).thenReturn(Flux.just("FAL-1000004"));
+        Mockito.when(productRepository.insertAll(anyList())).thenReturn(Flux.just(saved));
+
+        //act and assert
+        webTestClient
+                .post()
+                .uri("/product/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(Flux.just(fresh, taken, invalid), ProductRequest.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BulkResultDTO.class)
+                .value(results -> {
+                    assertEquals(3, results.size());
+                    assertEquals(HttpStatus.CREATED.value(), results.get(0).getStatus());
+                    assertEquals(1L, results.get(0).getId());
+                    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), results.get(1).getStatus());
+                    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), results.get(2).getStatus());
+                    assertEquals("sku: Invalid sku format", results.get(2).getMessage());
+                });
+    }
+
+    @Test
+    void givenSomeSkusItWillReturnFoundAndMissingProducts() {
+        //arrange
+        Product found = new Product("FAL-1000005", "some_name", "some_brand", "L", 1.0, null, null);
+
+        Mockito.when(productRepository.findBySkuNumberInAndSkuIn(anyCollection(), anyCollection())).thenReturn(Flux.just(found));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product?skus=FAL-1000005,FAL-1000006")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products[0].sku").isEqualTo("FAL-1000005")
+                .jsonPath("$.missing[0]").isEqualTo("FAL-1000006");
+        Mockito.verify(productRepository, Mockito.times(1)).findBySkuNumberInAndSkuIn(anyCollection(), anyCollection());
+    }
+
+    @Test
+    void givenSomeSkusItWillLoadTheImagesOfAllProductsInOneQuery() {
+        //arrange
+        Product first = new Product("FAL-1000011", "some_name", "some_brand", "L", 1.0, null, null);
+        first.setId(21L);
+        Product second = new Product("FAL-1000012", "some_name", "some_brand", "L", 1.0, null, null);
+        second.setId(22L);
+
+        Mockito.when(productRepository.findBySkuNumberInAndSkuIn(anyCollection(), anyCollection())).thenReturn(Flux.just(first, second));
+        Mockito.when(productRepository.findImages(anyCollection())).thenReturn(Flux.just(
+                new ProductImage(21L, 0, "https://img/a.png"),
+                new ProductImage(21L, 1, "https://img/b.png"),
+                new ProductImage(22L, 0, "https://img/c.png")));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product?skus=FAL-1000011,FAL-1000012")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products[0].otherImages[1]").isEqualTo("https://img/b.png")
+                .jsonPath("$.products[1].otherImages[0]").isEqualTo("https://img/c.png");
+        Mockito.verify(productRepository, Mockito.times(1)).findImages(List.of(21L, 22L));
+    }
+
+    @Test
+    void givenSomeInvalidSkuInMultiGetItWillReturnHttp400() {
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product?skus=FAL-1000005,some_sku")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void givenSomeCursorItWillReturnTheNextPage() {
+        //arrange
+        Product first = new Product("FAL-1000007", "some_name", "some_brand", "L", 1.0, null, null);
+        first.setId(11L);
+        Product second = new Product("FAL-1000008", "some_name", "some_brand", "L", 1.0, null, null);
+        second.setId(12L);
+
+        Mockito.when(productRepository.findPage(10L, 2)).thenReturn(Flux.just(first, second));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product?after=10&limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products.length()").isEqualTo(2)
+                .jsonPath("$.next").isEqualTo(12);
+    }
+
+    @Test
+    void givenImagesDisabledThePageWillNotLoadThem() {
+        //arrange
+        Product first = new Product("FAL-1000013", "some_name", "some_brand", "L", 1.0, null, null);
+        first.setId(31L);
+
+        Mockito.when(productRepository.findPage(30L, 1)).thenReturn(Flux.just(first));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product?after=30&limit=1&images=false")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products[0].otherImages").doesNotExist();
+        Mockito.verify(productRepository, Mockito.never()).findImages(anyCollection());
+    }
+
+    @Test
+    void givenSomeLimitOutOfBoundsItWillReturnHttp400() {
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void exportWillStreamTheCatalogAsNdjson() {
+        //arrange
+        Mockito.when(productRepository.streamAll()).thenReturn(Flux.just(
+                new Product("FAL-1000009", "some_name", "some_brand", "L", 1.0, null, null),
+                new Product("FAL-1000010", "some_name", "some_brand", "L", 1.0, null, null)));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Product.class).hasSize(2);
+    }
+
+    @Test
+    void givenSomeFiltersItWillStreamTheMatchingProductsSortedByPrice() {
+        //arrange
+        Product product = new Product("FAL-1000014", "some_name", "some_brand", "L", 15.0, null, null);
+        product.setId(41L);
+
+        Mockito.when(productRepository.findFiltered(any())).thenReturn(Flux.just(product));
+
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product/search?brand=some_brand&size=L&minPrice=10&maxPrice=20&sort=price&after=40&afterPrice=12.5&limit=10")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Product.class).hasSize(1);
+        Mockito.verify(productRepository).findFiltered(argThat(filter -> filter.getSort() == ProductFilter.Sort.PRICE
+                && "some_brand".equals(filter.getBrand()) && "L".equals(filter.getSize())
+                && filter.getMinPrice() == 10.0 && filter.getMaxPrice() == 20.0
+                && filter.getAfterId() == 40L && filter.getAfterPrice() == 12.5 && filter.getLimit() == 10));
+    }
+
+    @Test
+    void givenSomeUnknownSortTheSearchWillReturnHttp400() {
+        //act and assert
+        webTestClient
+                .get()
+                .uri("/product/search?sort=name")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void givenSomeDeletedProductTheChangeStreamWillResumeWithTheDelete() {
+        //arrange
+        Mockito.when(productRepository.deleteBySkuNumberAndSku(anyLong(), anyString())).thenReturn(Mono.just(true));
+        webTestClient.delete().uri("/product/FAL-1000016").exchange().expectStatus().isOk();
+
+        //act
+        var changes = webTestClient
+                .get()
+                .uri("/product/changes?after=0")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody();
+
+        //assert
+        StepVerifier.create(changes.filter(change -> "FAL-1000016".equals(change.get("sku"))).take(1))
+                .expectNextMatches(change -> "DELETED".equals(change.get("type")) && change.get("sequence") != null)
+                .verifyComplete();
+    }
+}